@@ -7,11 +7,13 @@ import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.*;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.function.Predicate;
 
 @Component
 public class AssistantToolsImpl implements AssistantTools {
@@ -43,6 +45,7 @@ public class AssistantToolsImpl implements AssistantTools {
             new ParameterizedTypeReference<>() {};
     private static final ParameterizedTypeReference<Map<String, Object>> MAP_OF_OBJECTS =
             new ParameterizedTypeReference<>() {};
+    private static final int CATALOGUE_PAGE = 500;
 
     @Override
     @Tool("List all users from user-service")
@@ -171,7 +174,7 @@ public class AssistantToolsImpl implements AssistantTools {
         return lookup_orders(uid);
     }
 
-    @Tool("Get the most recent order for the current user")
+    @Tool("Get the most recent order (id and date), order count and total spend for the current user")
     public Map<String, Object> last_order_for_me() {
         Long uid = ctx.getUserId();
         if (uid == null) {
@@ -180,10 +183,23 @@ public class AssistantToolsImpl implements AssistantTools {
                     "hint", "Say your name or id first"
             );
         }
-        List<Map<String, Object>> orders = lookup_orders(uid);
-        if (orders.isEmpty()) return Map.of("message", "No orders found");
-        orders.sort(Comparator.comparing(o -> safeGetStr(o, "createdAt"), Comparator.nullsFirst(String::compareTo)));
-        return orders.get(orders.size() - 1);
+        try {
+            // aggregate endpoint: no need to pull every order just to pick the latest
+            ResponseEntity<Map<String, Object>> r = http.exchange(
+                    ORDER_SVC + "/api/orders/user/" + uid + "/summary",
+                    HttpMethod.GET,
+                    null,
+                    MAP_OF_OBJECTS
+            );
+            Map<String, Object> summary = r.getBody();
+            if (summary == null || summary.get("latestOrderId") == null) return Map.of("message", "No orders found");
+            return summary;
+        } catch (Exception ex) {
+            return Map.of(
+                    "error", "order-service unreachable",
+                    "detail", ex.getMessage()
+            );
+        }
     }
 
     @Tool("Place an order by POST /api/orders with {userId, bookId}")
@@ -196,9 +212,17 @@ public class AssistantToolsImpl implements AssistantTools {
 
             HttpHeaders headers = new HttpHeaders();
             headers.setContentType(MediaType.APPLICATION_JSON);
+            // the same tool call repeated within one chat turn places one order
+            headers.set("Idempotency-Key", ctx.getRequestId() + ":" + user_id + ":" + book_id);
             HttpEntity<Map<String, Object>> entity = new HttpEntity<>(req, headers);
 
-            ResponseEntity<Map<String, Object>> r = http.exchange(url, HttpMethod.POST, entity, MAP_OF_OBJECTS);
+            ResponseEntity<Map<String, Object>> r;
+            try {
+                r = http.exchange(url, HttpMethod.POST, entity, MAP_OF_OBJECTS);
+            } catch (ResourceAccessException timeout) {
+                // the order may have been created; retry under the same key
+                r = http.exchange(url, HttpMethod.POST, entity, MAP_OF_OBJECTS);
+            }
             Map<String, Object> body = r.getBody();
             if (r.getStatusCode().is2xxSuccessful() && body != null) {
                 Object newId = body.getOrDefault("id", body.get("orderId"));
@@ -243,25 +267,18 @@ public class AssistantToolsImpl implements AssistantTools {
         } catch (Exception ignore) {}
 
         try {
-            ResponseEntity<List<Map<String, Object>>> r = http.exchange(
-                    BOOK_SVC + "/api/books",
-                    HttpMethod.GET,
-                    null,
-                    LIST_OF_MAPS
-            );
-            List<Map<String, Object>> all = r.getBody();
-            if (all == null || all.isEmpty()) {
-                return List.of("No catalogue data available.");
-            }
             String needle = q.toLowerCase(Locale.ROOT);
             List<Map<String, Object>> filtered = new ArrayList<>();
-            for (Map<String, Object> m : all) {
-                if (m == null) continue;
-                String title = safeGetStr(m, "title");
-                String authors = safeGetStr(m, "authors");
-                boolean match = (title != null && title.toLowerCase(Locale.ROOT).contains(needle))
-                        || (authors != null && authors.toLowerCase(Locale.ROOT).contains(needle));
-                if (match) filtered.add(m);
+            boolean[] any = {false};
+            forEachCataloguePage(books -> {
+                any[0] |= !books.isEmpty();
+                for (Map<String, Object> m : books) {
+                    if (matches(m, needle)) filtered.add(m);
+                }
+                return filtered.size() < 5;
+            });
+            if (!any[0]) {
+                return List.of("No catalogue data available.");
             }
             if (filtered.isEmpty()) return List.of("No matches found in the catalogue for: " + q);
             return toTitleAuthorLines(filtered, 5);
@@ -282,25 +299,43 @@ public class AssistantToolsImpl implements AssistantTools {
         } catch (Exception ignore) {}
 
         try {
-            ResponseEntity<List<Map<String, Object>>> r = http.exchange(
-                    BOOK_SVC + "/api/books", HttpMethod.GET, null, LIST_OF_MAPS);
-            List<Map<String, Object>> all = r.getBody();
-            if (all == null) return List.of();
             String needle = q.toLowerCase(Locale.ROOT);
             List<Map<String, Object>> filtered = new ArrayList<>();
-            for (Map<String, Object> m : all) {
-                if (m == null) continue;
-                String title = safeGetStr(m, "title");
-                String authors = safeGetStr(m, "authors");
-                boolean match = (title != null && title.toLowerCase(Locale.ROOT).contains(needle))
-                        || (authors != null && authors.toLowerCase(Locale.ROOT).contains(needle));
-                if (match) filtered.add(m);
-            }
+            forEachCataloguePage(books -> {
+                for (Map<String, Object> m : books) {
+                    if (matches(m, needle)) filtered.add(m);
+                }
+                return true;
+            });
             return filtered;
         } catch (Exception e) {
             return List.of();
         }
     }
+
+    /**
+     * Walks {@code GET /api/books} one keyset page at a time, following the
+     * {@code X-Next-After} cursor, until the catalogue ends or {@code page} returns false.
+     */
+    private void forEachCataloguePage(Predicate<List<Map<String, Object>>> page) {
+        String url = BOOK_SVC + "/api/books?limit=" + CATALOGUE_PAGE;
+        while (url != null) {
+            ResponseEntity<List<Map<String, Object>>> r = http.exchange(url, HttpMethod.GET, null, LIST_OF_MAPS);
+            List<Map<String, Object>> books = r.getBody();
+            if (books == null || !page.test(books)) return;
+            String next = r.getHeaders().getFirst("X-Next-After");
+            url = next == null ? null : BOOK_SVC + "/api/books?limit=" + CATALOGUE_PAGE + "&after=" + next;
+        }
+    }
+
+    private static boolean matches(Map<String, Object> m, String needle) {
+        if (m == null) return false;
+        String title = safeGetStr(m, "title");
+        String authors = safeGetStr(m, "authors");
+        return (title != null && title.toLowerCase(Locale.ROOT).contains(needle))
+                || (authors != null && authors.toLowerCase(Locale.ROOT).contains(needle));
+    }
+
     private static String urlEncode(String s) {
         return URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
@@ -16,6 +16,7 @@ import java.util.Map;
 public class BookSearchAdapter implements AssistantToolsImpl.BookSearch {
 
     private static final String BOOK_SVC = "http://localhost:8080";
+    private static final int MAX_RESULTS = 5;
     private final RestTemplate http = new RestTemplate();
 
     @Override
@@ -26,7 +27,9 @@ public class BookSearchAdapter implements AssistantToolsImpl.BookSearch {
         }
 
         try {
-            String url = BOOK_SVC + "/api/books/search?q=" + URLEncoder.encode(q, StandardCharsets.UTF_8);
+            // fuzzy ranking also covers exact hits, so typos like "hary poter" resolve in one call
+            String url = BOOK_SVC + "/api/books/search?fuzzy=true&limit=" + MAX_RESULTS
+                    + "&q=" + URLEncoder.encode(q, StandardCharsets.UTF_8);
             ResponseEntity<List> resp = http.getForEntity(url, List.class);
             Object body = resp.getBody();
 
@@ -42,7 +45,7 @@ public class BookSearchAdapter implements AssistantToolsImpl.BookSearch {
                             out.add(title.toString());
                         }
                     }
-                    if (out.size() >= 5) break;
+                    if (out.size() >= MAX_RESULTS) break;
                 }
             }
             if (out.isEmpty()) {
@@ -6,7 +6,10 @@ import org.springframework.web.client.RestTemplate;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Component
 public class BookServiceClient {
@@ -28,6 +31,23 @@ public class BookServiceClient {
         }
     }
 
+    /** Books for many ids in one call to /api/books/batch, keyed by id; empty on failure. */
+    public Map<Long, BookDto> byIds(Collection<Long> ids) {
+        if (ids.isEmpty()) return Map.of();
+        try {
+            BookDto[] arr = http.postForObject(BOOK_SVC + "/api/books/batch", List.copyOf(ids), BookDto[].class);
+            Map<Long, BookDto> out = new HashMap<>();
+            if (arr != null) {
+                for (BookDto b : arr) {
+                    if (b.id() != null) out.put(Long.valueOf(b.id()), b);
+                }
+            }
+            return out;
+        } catch (Exception e) {
+            return Map.of();
+        }
+    }
+
     public List<String> suggestions(Long userId, int limit) {
         try {
             String url = BOOK_SVC + "/api/books/suggestions?userId=" + userId + "&limit=" + limit;
@@ -21,11 +21,16 @@ public class OrderApiClient {
         this.baseUrl = baseUrl;
     }
 
-    public List<OrderDto> getAllOrders() {
-        String url = baseUrl + "/api/orders";
+    /** One keyset page of orders; {@code nextAfter} is the cursor for the next one, null on the last. */
+    public record OrdersPage(List<OrderDto> orders, Long nextAfter) {}
+
+    public OrdersPage getOrders(Long after, int limit) {
+        String url = baseUrl + "/api/orders?limit=" + limit + (after != null ? "&after=" + after : "");
         ResponseEntity<OrderDto[]> resp = restTemplate.getForEntity(url, OrderDto[].class);
         OrderDto[] body = resp.getBody();
-        return body == null ? Collections.emptyList() : Arrays.asList(body);
+        String next = resp.getHeaders().getFirst("X-Next-After");
+        return new OrdersPage(body == null ? Collections.emptyList() : Arrays.asList(body),
+                next == null ? null : Long.valueOf(next));
     }
 
     public List<OrderDto> getOrdersByUser(Long userId) {
@@ -1,10 +1,14 @@
 package com.intellicart.aiassistantservice.client;
 
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.Arrays;
 import java.util.List;
+import java.util.UUID;
 
 @Component
 public class OrderServiceClient {
@@ -35,11 +39,15 @@ public class OrderServiceClient {
 
             payload.setItems(List.of(item));
 
-            return http.postForObject(
-                    ORDER_SVC + "/api/orders",
-                    payload,
-                    OrderDto.class
-            );
+            HttpHeaders headers = new HttpHeaders();
+            // one key per call, so the retry after a timeout cannot create a second order
+            headers.set("Idempotency-Key", UUID.randomUUID().toString());
+            HttpEntity<OrderDto> request = new HttpEntity<>(payload, headers);
+            try {
+                return http.postForObject(ORDER_SVC + "/api/orders", request, OrderDto.class);
+            } catch (ResourceAccessException timeout) {
+                return http.postForObject(ORDER_SVC + "/api/orders", request, OrderDto.class);
+            }
         } catch (Exception e) {
             return null;
         }
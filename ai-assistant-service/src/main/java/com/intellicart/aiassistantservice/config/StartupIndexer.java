@@ -1,17 +1,25 @@
 package com.intellicart.aiassistantservice.config;
 
 import com.intellicart.aiassistantservice.service.BookIndexService;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
 
+import java.util.concurrent.TimeUnit;
+
 @Component
 public class StartupIndexer {
     private static final Logger log = LoggerFactory.getLogger(StartupIndexer.class);
+    private static final int CHANGES_WAIT_SECONDS = 25;
+    private static final long RETRY_DELAY_MS = 1000;
     private final BookIndexService index;
 
+    private volatile boolean running;
+    private Thread follower;
+
     public StartupIndexer(BookIndexService index) {
         this.index = index;
     }
@@ -24,5 +32,35 @@ public class StartupIndexer {
         } catch (Exception e) {
             log.warn("[StartupIndexer] Reindex failed on startup: {}", e.getMessage());
         }
+        // the long-poll holds its thread for up to 25 s, so it gets its own rather than a scheduler's
+        running = true;
+        follower = new Thread(this::followChanges, "book-change-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (follower != null) follower.interrupt();
+    }
+
+    /** Follows book-service's change feed so the index stays current without full reindexes. */
+    private void followChanges() {
+        while (running) {
+            try {
+                int applied = index.applyChanges(CHANGES_WAIT_SECONDS);
+                if (applied > 0) {
+                    log.info("[StartupIndexer] Applied {} catalogue changes", applied);
+                }
+            } catch (Exception e) {
+                log.debug("[StartupIndexer] Change feed unavailable: {}", e.getMessage());
+                try {
+                    TimeUnit.MILLISECONDS.sleep(RETRY_DELAY_MS);
+                } catch (InterruptedException stopped) {
+                    return;
+                }
+            }
+        }
     }
 }
@@ -4,15 +4,21 @@ package com.intellicart.aiassistantservice.presentation;
 import org.springframework.stereotype.Component;
 import org.springframework.web.context.annotation.RequestScope;
 
+import java.util.UUID;
+
 @Component
 @RequestScope
 public class RequestContext {
     private Long userId;
     private String sessionId;
+    /** Scopes the Idempotency-Keys of orders placed while handling this request. */
+    private final String requestId = UUID.randomUUID().toString();
 
     public Long getUserId() { return userId; }
     public void setUserId(Long userId) { this.userId = userId; }
 
     public String getSessionId() { return sessionId; }
     public void setSessionId(String sessionId) { this.sessionId = sessionId; }
+
+    public String getRequestId() { return requestId; }
 }
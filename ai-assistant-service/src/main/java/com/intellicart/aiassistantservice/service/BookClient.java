@@ -3,10 +3,14 @@ package com.intellicart.aiassistantservice.service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.SimpleClientHttpRequestFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.RestTemplate;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -15,6 +19,9 @@ import java.util.Map;
 public class BookClient {
 
     private static final Logger log = LoggerFactory.getLogger(BookClient.class);
+    private static final int PAGE_SIZE = 500;
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> BOOK_PAGE =
+            new ParameterizedTypeReference<>() {};
 
     private final RestTemplate http;
     private final String baseUrl;
@@ -28,11 +35,22 @@ public class BookClient {
         this.http = new RestTemplate(rf);
     }
 
-    @SuppressWarnings("unchecked")
+    /**
+     * Whole catalogue, read one keyset page at a time by following book-service's
+     * {@code X-Next-After} cursor. Empty when book-service is unreachable.
+     */
     public List<Map<String, Object>> fetchAll() {
         try {
-            List<Map<String, Object>> out = http.getForObject(baseUrl + "/api/books", List.class);
-            return (out == null) ? Collections.emptyList() : out;
+            List<Map<String, Object>> out = new ArrayList<>();
+            String url = baseUrl + "/api/books?limit=" + PAGE_SIZE;
+            while (url != null) {
+                ResponseEntity<List<Map<String, Object>>> page = http.exchange(url, HttpMethod.GET, null, BOOK_PAGE);
+                if (page.getBody() == null) break;
+                out.addAll(page.getBody());
+                String next = page.getHeaders().getFirst("X-Next-After");
+                url = next == null ? null : baseUrl + "/api/books?limit=" + PAGE_SIZE + "&after=" + next;
+            }
+            return out;
         } catch (Exception e) {
             log.warn("Book service not reachable at {}: {}", baseUrl, e.getMessage());
             return Collections.emptyList();  // <-- critical: don’t throw
@@ -6,21 +6,37 @@ import dev.langchain4j.model.embedding.EmbeddingModel;
 import dev.langchain4j.store.embedding.EmbeddingSearchRequest;
 import dev.langchain4j.store.embedding.EmbeddingSearchResult;
 import dev.langchain4j.store.embedding.EmbeddingStore;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 @Service
 public class BookIndexService {
 
+    private static final String BOOK_SVC = "http://localhost:8080";
+    private static final int PAGE_SIZE = 500;
+    private static final ParameterizedTypeReference<List<Map<String, Object>>> BOOK_PAGE =
+            new ParameterizedTypeReference<>() {};
+    private static final ParameterizedTypeReference<Map<String, Object>> CHANGES =
+            new ParameterizedTypeReference<>() {};
+
     private final RestTemplate rest;
     private final EmbeddingStore<TextSegment> store;
     private final EmbeddingModel embeddingModel;
 
+    // change-feed sequence the index is in sync with; -1 until the first full index
+    private volatile long changeSeq = -1;
+    // book id -> id of its embedding in the store, so changed books can be replaced
+    private final Map<Long, String> embeddingIds = new ConcurrentHashMap<>();
+
     public BookIndexService(EmbeddingStore<TextSegment> store,
                             EmbeddingModel embeddingModel) {
         this.rest = new RestTemplate();
@@ -43,29 +59,116 @@ public class BookIndexService {
     }
 
     /**
-     * Call book-service (/api/books) and reindex all books.
+     * Call book-service (/api/books) and reindex all books, one keyset page at a time.
+     * Skipped entirely when the change feed has not moved since the last full run.
      */
-    public String reindex() {
-        // Assuming book-service exposes GET http://localhost:8080/api/books
-        @SuppressWarnings("unchecked")
-        List<Map<String,Object>> books =
-                rest.getForObject("http://localhost:8080/api/books", List.class);
+    public synchronized String reindex() {
+        // feed position before the first page: later changes are replayed, and replays are idempotent
+        long head = feedHead();
+        if (changeSeq >= 0 && head == changeSeq) {
+            return "Catalogue unchanged since last index; nothing to do";
+        }
+        store.removeAll(embeddingIds.values());
+        embeddingIds.clear();
+        int docs = 0, segs = 0;
+        String url = BOOK_SVC + "/api/books?limit=" + PAGE_SIZE;
+        while (url != null) {
+            ResponseEntity<List<Map<String, Object>>> resp = rest.exchange(url, HttpMethod.GET, null, BOOK_PAGE);
+            List<Map<String, Object>> books = resp.getBody();
+            if (books == null || books.isEmpty()) {
+                break;
+            }
+
+            for (Map<String,Object> b : books) {
+                index(b);
+                docs++;
+                segs++;
+            }
+
+            // book-service sets the cursor header on every page but the last
+            String next = resp.getHeaders().getFirst("X-Next-After");
+            url = next == null ? null : BOOK_SVC + "/api/books?limit=" + PAGE_SIZE + "&after=" + next;
+        }
 
-        if (books == null || books.isEmpty()) {
+        changeSeq = head;
+        if (docs == 0) {
             return "Indexed 0 books (book-service returned nothing)";
         }
+        return "Indexed " + docs + " books (" + segs + " segments)";
+    }
 
-        int docs = 0, segs = 0;
-        for (Map<String,Object> b : books) {
-            String text = buildBookText(b);
-            TextSegment seg = TextSegment.from("[source:book-service#" + b.get("id") + "] " + text);
-            Embedding emb = embeddingModel.embed(seg.text()).content();
-            store.add(emb, seg);
-
-            docs++;
-            segs++;
+    /**
+     * Applies the catalogue changes since the last sync, waiting up to {@code waitSeconds}
+     * for one to happen. Falls back to {@link #reindex} when book-service reports the
+     * catalogue was reloaded or our position is no longer in its log, or when no full
+     * index has succeeded yet. Returns the number of books re-embedded or removed.
+     */
+    public int applyChanges(int waitSeconds) {
+        long since = changeSeq;
+        if (since < 0) {
+            reindex();
+            return embeddingIds.size();
+        }
+        Map<String, Object> batch = rest.exchange(
+                BOOK_SVC + "/api/books/changes?since=" + since + "&wait=" + waitSeconds,
+                HttpMethod.GET, null, CHANGES).getBody();
+        if (batch == null) return 0;
+
+        synchronized (this) {
+            if (changeSeq != since) return 0; // a reindex ran meanwhile
+            if (Boolean.TRUE.equals(batch.get("reset"))) {
+                reindex();
+                return embeddingIds.size();
+            }
+            int applied = 0;
+            Object changes = batch.get("changes");
+            if (changes instanceof List<?> list) {
+                for (Object o : list) {
+                    if (!(o instanceof Map<?, ?> change)) continue;
+                    String type = String.valueOf(change.get("type"));
+                    if ("RESET".equals(type)) {
+                        reindex();
+                        return embeddingIds.size();
+                    }
+                    Long id = toLong(change.get("id"));
+                    if (id == null) continue;
+                    if ("UPSERT".equals(type) && change.get("book") instanceof Map<?, ?> book) {
+                        @SuppressWarnings("unchecked")
+                        Map<String, Object> fields = (Map<String, Object>) book;
+                        index(fields);
+                        applied++;
+                    } else if ("DELETE".equals(type)) {
+                        String old = embeddingIds.remove(id);
+                        if (old != null) store.remove(old);
+                        applied++;
+                    }
+                }
+            }
+            Long latest = toLong(batch.get("latest"));
+            if (latest != null) changeSeq = latest;
+            return applied;
+        }
+    }
+
+    /** Current sequence number of book-service's change feed. */
+    private long feedHead() {
+        Map<String, Object> reply = rest.exchange(
+                BOOK_SVC + "/api/books/changes/head", HttpMethod.GET, null, CHANGES).getBody();
+        Long head = reply == null ? null : toLong(reply.get("head"));
+        return head == null ? -1 : head;
+    }
+
+    /** Embeds one book, replacing its previous embedding if any. */
+    private void index(Map<String, Object> b) {
+        String text = buildBookText(b);
+        TextSegment seg = TextSegment.from("[source:book-service#" + b.get("id") + "] " + text);
+        Embedding emb = embeddingModel.embed(seg.text()).content();
+        String embeddingId = store.add(emb, seg);
+        Long bookId = toLong(b.get("id"));
+        if (bookId != null) {
+            String old = embeddingIds.put(bookId, embeddingId);
+            if (old != null) store.remove(old);
         }
-        return "Indexed " + docs + " books (" + segs + " segments)";
     }
 
     /**
@@ -100,6 +203,15 @@ public class BookIndexService {
                 title, author, genre, summary, notes).trim();
     }
 
+    private static Long toLong(Object o) {
+        if (o instanceof Number n) return n.longValue();
+        try {
+            return o == null ? null : Long.valueOf(o.toString());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
     private static String safe(Object o) {
         return (o == null) ? "" : String.valueOf(o).trim();
     }
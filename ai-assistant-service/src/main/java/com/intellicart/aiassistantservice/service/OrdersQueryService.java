@@ -1,11 +1,15 @@
 package com.intellicart.aiassistantservice.service;
 
+import com.intellicart.aiassistantservice.client.BookServiceClient;
 import com.intellicart.aiassistantservice.client.OrderApiClient;
 import com.intellicart.aiassistantservice.client.OrderDto;
 import com.intellicart.aiassistantservice.client.OrderItemDto;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -15,12 +19,15 @@ public class OrdersQueryService {
     private static final Pattern USER_ORDERS =
             Pattern.compile("(?i)\\b(show|list|get)\\s+orders\\s+for\\s+user\\s+(\\d+)\\b");
     private static final Pattern ALL_ORDERS =
-            Pattern.compile("(?i)\\b(list|show|get)\\s+all\\s+orders\\b");
+            Pattern.compile("(?i)\\b(list|show|get)\\s+all\\s+orders\\b(?:\\s+after\\s+(\\d+))?");
+    private static final int ORDERS_PER_PAGE = 20;
 
     private final OrderApiClient client;
+    private final BookServiceClient books;
 
-    public OrdersQueryService(OrderApiClient client) {
+    public OrdersQueryService(OrderApiClient client, BookServiceClient books) {
         this.client = client;
+        this.books = books;
     }
 
     /** Returns non-null when this service can answer the message */
@@ -35,7 +42,8 @@ public class OrdersQueryService {
 
         Matcher m2 = ALL_ORDERS.matcher(message);
         if (m2.find()) {
-            return formatAllOrders(client.getAllOrders());
+            Long after = m2.group(2) == null ? null : Long.parseLong(m2.group(2));
+            return formatAllOrders(client.getOrders(after, ORDERS_PER_PAGE));
         }
 
         return null; // not handled
@@ -45,6 +53,16 @@ public class OrdersQueryService {
         if (orders.isEmpty()) {
             return "Orders for user " + userId + ": []";
         }
+        // resolve every book in the history with one batch call
+        Set<Long> bookIds = new LinkedHashSet<>();
+        for (OrderDto o : orders) {
+            if (o.getItems() == null) continue;
+            for (OrderItemDto it : o.getItems()) {
+                if (it.getBookId() != null) bookIds.add(it.getBookId());
+            }
+        }
+        Map<Long, BookServiceClient.BookDto> titles = books.byIds(bookIds);
+
         StringBuilder sb = new StringBuilder("Orders for user ").append(userId).append(":\n");
         for (OrderDto o : orders) {
             int itemCount = o.getItems() == null ? 0 : o.getItems().size();
@@ -54,8 +72,10 @@ public class OrdersQueryService {
             if (itemCount > 0) {
                 sb.append("\n  items:");
                 for (OrderItemDto it : o.getItems()) {
-                    sb.append("\n   • book ").append(it.getBookId())
-                            .append(" x").append(it.getQuantity())
+                    BookServiceClient.BookDto book = titles.get(it.getBookId());
+                    sb.append("\n   • book ").append(it.getBookId());
+                    if (book != null && book.title() != null) sb.append(" \"").append(book.title()).append('"');
+                    sb.append(" x").append(it.getQuantity())
                             .append(" @ ").append(it.getPrice());
                 }
             }
@@ -64,16 +84,19 @@ public class OrdersQueryService {
         return sb.toString();
     }
 
-    private String formatAllOrders(List<OrderDto> orders) {
-        if (orders.isEmpty()) return "Orders: []";
+    private String formatAllOrders(OrderApiClient.OrdersPage page) {
+        if (page.orders().isEmpty()) return "Orders: []";
         StringBuilder sb = new StringBuilder("Orders:\n");
-        for (OrderDto o : orders) {
+        for (OrderDto o : page.orders()) {
             int itemCount = o.getItems() == null ? 0 : o.getItems().size();
             sb.append("- #").append(o.getId())
                     .append(" user ").append(o.getUserId())
                     .append(" total ").append(o.getTotalAmount())
                     .append(" (").append(itemCount).append(itemCount == 1 ? " item" : " items").append(")\n");
         }
+        if (page.nextAfter() != null) {
+            sb.append("More orders: say \"list all orders after ").append(page.nextAfter()).append("\".\n");
+        }
         return sb.toString();
     }
 }
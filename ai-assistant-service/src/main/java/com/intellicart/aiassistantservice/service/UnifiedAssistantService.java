@@ -5,6 +5,7 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.http.*;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
@@ -18,6 +19,7 @@ public class UnifiedAssistantService {
 
     private static final String USER_SVC = "http://localhost:8081";
     private static final String ORDER_SVC = "http://localhost:8082";
+    private static final String BOOK_SVC = "http://localhost:8080";
 
     private final RestTemplate http = new RestTemplate();
     private final ObjectMapper json = new ObjectMapper();
@@ -67,8 +69,9 @@ public class UnifiedAssistantService {
                 return out("User " + userId + ":\n" + pretty(user), 1.0, sessionId);
             }
             if (matches(lx, "list all orders", "show all orders", "get all orders")) {
-                Object orders = getJson(ORDER_SVC + "/api/orders");
-                return out("Orders:\n" + pretty(orders), 1.0, sessionId);
+                // first page only; the full list is unbounded
+                Object orders = getJson(ORDER_SVC + "/api/orders?limit=20");
+                return out("Orders (first 20):\n" + pretty(orders), 1.0, sessionId);
             }
             Long ordersFor = extractFirstLong(lx, "(?:show|list|get)\\s+orders\\s+for\\s+user\\s+(\\d+)");
             if (ordersFor != null) {
@@ -351,12 +354,32 @@ public class UnifiedAssistantService {
             }
             List<Rec> r = parseRecText(ans);
             if (r.isEmpty()) r = fallbackRecs(pref);
-            return r;
+            return withCataloguePrices(r);
         } catch (Exception ignored) {
-            return fallbackRecs(pref);
+            return withCataloguePrices(fallbackRecs(pref));
         }
     }
 
+    /**
+     * Swaps the placeholder id and price of each rec for the catalogue's when book-service
+     * knows the title, resolving every title and its price in one bulk lookup.
+     */
+    private List<Rec> withCataloguePrices(List<Rec> recs) {
+        if (recs.isEmpty()) return recs;
+        List<String> titles = new ArrayList<>(recs.size());
+        for (Rec r : recs) titles.add(r.title);
+        try {
+            Object found = http.postForObject(BOOK_SVC + "/api/books/titles/lookup", titles, Map.class);
+            if (!(found instanceof Map<?, ?> byTitle)) return recs;
+            for (Rec r : recs) {
+                if (!(byTitle.get(r.title) instanceof Map<?, ?> b) || !(b.get("id") instanceof Number id)) continue;
+                r.bookId = id.longValue();
+                if (b.get("price") instanceof Number price) r.price = price.doubleValue();
+            }
+        } catch (Exception ignored) {}
+        return recs;
+    }
+
     private List<Rec> parseRecText(String text) {
         List<Rec> out = new ArrayList<>();
         if (text == null) return out;
@@ -461,11 +484,20 @@ public class UnifiedAssistantService {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        try {
-            ResponseEntity<Object> resp = http.postForEntity(ORDER_SVC + "/api/orders", new HttpEntity<>(payload, headers), Object.class);
-            Object body = resp.getBody();
-            if (body instanceof Map<?, ?> m) return (Map<String, Object>) m;
-        } catch (Exception ignored) {}
+        // one key per checkout, so the retry after a timeout cannot create a second order
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                ResponseEntity<Object> resp = http.postForEntity(ORDER_SVC + "/api/orders", new HttpEntity<>(payload, headers), Object.class);
+                Object body = resp.getBody();
+                if (body instanceof Map<?, ?> m) return (Map<String, Object>) m;
+                break;
+            } catch (ResourceAccessException timeout) {
+                // the order may have been created; retry under the same key
+            } catch (Exception ignored) {
+                break;
+            }
+        }
         Map<String, Object> out = new LinkedHashMap<>();
         out.put("id", "unknown");
         out.put("totalAmount", total);
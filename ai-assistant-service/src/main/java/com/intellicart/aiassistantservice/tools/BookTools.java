@@ -13,6 +13,7 @@ import java.util.*;
 public class BookTools implements Tool {
 
     private static final String BOOK_SVC = "http://localhost:8080";
+    private static final int FALLBACK_PAGE = 10;
     private final RestTemplate http = new RestTemplate();
 
     @Override
@@ -23,7 +24,7 @@ public class BookTools implements Tool {
                 case "search" -> {
                     String q = text(args.get("query"));
                     if (!StringUtils.hasText(q)) return ToolResult.err("query is required");
-                    Object res = getJson(BOOK_SVC + "/api/books/search?q=" + url(q));
+                    Object res = getJson(BOOK_SVC + "/api/books/search?limit=10&q=" + url(q));
                     return ToolResult.ok(Map.of("items", res));
                 }
                 case "recommend" -> {
@@ -41,23 +42,23 @@ public class BookTools implements Tool {
     private Object recommendCatalogue(String pref) {
         String p = (pref == null ? "" : pref.toLowerCase(Locale.ROOT)).trim();
         if (p.isEmpty()) {
-            return getJson(BOOK_SVC + "/api/books"); // fall back: first page
+            return getJson(BOOK_SVC + "/api/books?limit=" + FALLBACK_PAGE); // fall back: first page
         }
         if (p.contains("sci") || p.contains("science")) {
-            Object byGenre = getJson(BOOK_SVC + "/api/books?genre=sci-fi");
+            Object byGenre = getJson(BOOK_SVC + "/api/books?limit=3&genre=sci-fi");
             if (nonEmptyList(byGenre)) return limit(byGenre, 3);
         }
         if (p.contains("fantasy")) {
-            Object byGenre = getJson(BOOK_SVC + "/api/books?genre=fantasy");
+            Object byGenre = getJson(BOOK_SVC + "/api/books?limit=3&genre=fantasy");
             if (nonEmptyList(byGenre)) return limit(byGenre, 3);
         }
         if (p.contains("romance")) {
-            Object byGenre = getJson(BOOK_SVC + "/api/books?genre=romance");
+            Object byGenre = getJson(BOOK_SVC + "/api/books?limit=3&genre=romance");
             if (nonEmptyList(byGenre)) return limit(byGenre, 3);
         }
-        Object bySearch = getJson(BOOK_SVC + "/api/books/search?q=" + url(pref));
+        Object bySearch = getJson(BOOK_SVC + "/api/books/search?limit=3&sort=averageRating&q=" + url(pref));
         if (nonEmptyList(bySearch)) return limit(bySearch, 3);
-        return getJson(BOOK_SVC + "/api/books");
+        return getJson(BOOK_SVC + "/api/books?limit=" + FALLBACK_PAGE); // first page, as above
     }
 
     private boolean nonEmptyList(Object o) { return (o instanceof List<?> l) && !l.isEmpty(); }
@@ -4,6 +4,7 @@ import com.intellicart.aiassistantservice.convo.ToolResult;
 import com.intellicart.aiassistantservice.convo.TurnContext;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 import java.util.*;
@@ -28,6 +29,8 @@ public class OrderTools implements Tool {
                 case "checkout" -> {
                     Long uid = argOrCtxUserId(args.get("userId"), ctx);
                     if (uid == null) return ToolResult.err("userId is required");
+                    // a repeated checkout call after success finds the cart already cleared
+                    if (ctx.cart().isEmpty()) return ToolResult.err("cart is empty");
                     Map<String, Object> order = placeOrder(uid, ctx.cart());
                     ctx.clearCart();
                     return ToolResult.ok(Map.of("order", order));
@@ -67,15 +70,24 @@ public class OrderTools implements Tool {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
-        try {
-            ResponseEntity<Object> resp = http.postForEntity(
-                    ORDER_SVC + "/api/orders",
-                    new HttpEntity<>(payload, headers),
-                    Object.class
-            );
-            Object body = resp.getBody();
-            if (body instanceof Map<?, ?> m) return (Map<String, Object>) m;
-        } catch (Exception ignored) {}
+        // one key per checkout, so the retry after a timeout cannot create a second order
+        headers.set("Idempotency-Key", UUID.randomUUID().toString());
+        for (int attempt = 1; attempt <= 2; attempt++) {
+            try {
+                ResponseEntity<Object> resp = http.postForEntity(
+                        ORDER_SVC + "/api/orders",
+                        new HttpEntity<>(payload, headers),
+                        Object.class
+                );
+                Object body = resp.getBody();
+                if (body instanceof Map<?, ?> m) return (Map<String, Object>) m;
+                break;
+            } catch (ResourceAccessException timeout) {
+                // the order may have been created; retry under the same key
+            } catch (Exception ignored) {
+                break;
+            }
+        }
         Map<String, Object> fallback = new LinkedHashMap<>();
         fallback.put("id", "unknown");
         fallback.put("totalAmount", total);
@@ -0,0 +1,132 @@
+package com.intellicart.bookservice;
+
+import com.intellicart.bookservice.bootstrap.BenchmarkData;
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.SearchText;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
+import com.intellicart.bookservice.infrastructure.BookRepository;
+import com.intellicart.bookservice.service.BookSearchIndex;
+import com.intellicart.bookservice.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BookService#searchByTitle} and {@link BookService#fuzzySearch} against an H2
+ * catalogue of 10k, 100k and 1M rows, next to the LIKE scan they replaced. The application
+ * context is the real one minus the web server and the CSV import; rows are bulk-inserted
+ * from the bundled export. The read-through cache is off, so each call measures the index
+ * plus the row fetch rather than a cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class SearchBenchmark {
+
+    private static final int SEED_BATCH = 5000;
+    private static final int QUERIES = 64;
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private ConfigurableApplicationContext context;
+    private BookService books;
+    private BookRepository repo;
+    private String[] queries;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(BookServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + rows + ";MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "app.books.import.enabled=false",
+                        "app.books.prices.path=",
+                        "app.books.cache.max-size=0",
+                        "app.orders.url=http://localhost:1",
+                        "logging.level.root=WARN")
+                .run();
+        books = context.getBean(BookService.class);
+        repo = context.getBean(BookRepository.class);
+
+        BookBatchWriter writer = context.getBean(BookBatchWriter.class);
+        List<Book> seed = BenchmarkData.books(rows);
+        for (int i = 0; i < seed.size(); i += SEED_BATCH) {
+            writer.insertWithIds(seed.subList(i, Math.min(seed.size(), i + SEED_BATCH)));
+        }
+        writer.restartIdSequence(rows);
+        books.reindex();
+
+        // one distinct word from every n-th title, so queries hit common and rare terms alike
+        Set<String> words = new LinkedHashSet<>();
+        List<Book> base = BenchmarkData.books();
+        for (int i = 0; i < base.size() && words.size() < QUERIES; i += Math.max(1, base.size() / QUERIES)) {
+            for (String w : base.get(i).getTitle().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+                if (w.length() >= 4) {
+                    words.add(w);
+                    break;
+                }
+            }
+        }
+        queries = new ArrayList<>(words).toArray(String[]::new);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    private String nextQuery() {
+        return queries[next++ % queries.length];
+    }
+
+    @Benchmark
+    public List<Book> searchByRelevance() {
+        return books.searchByTitle(nextQuery(), 20, BookSearchIndex.Sort.RELEVANCE);
+    }
+
+    @Benchmark
+    public List<Book> searchByRating() {
+        return books.searchByTitle(nextQuery(), 20, BookSearchIndex.Sort.RATING);
+    }
+
+    @Benchmark
+    public List<Book> fuzzySearch() {
+        return books.fuzzySearch(nextQuery(), 20, BookSearchIndex.Sort.RELEVANCE);
+    }
+
+    /** Baseline: the unindexed LIKE '%q%' query the index replaced; every match is loaded. */
+    @Benchmark
+    public List<Book> likeScan() {
+        return repo.findByTitleKeyContaining(SearchText.fold(nextQuery()));
+    }
+
+    /** Prefix lookup on the title_key index. */
+    @Benchmark
+    public List<Book> titlePrefix() {
+        return books.titlesStartingWith(nextQuery(), 20);
+    }
+}
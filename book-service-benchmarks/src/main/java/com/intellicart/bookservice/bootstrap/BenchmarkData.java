@@ -0,0 +1,85 @@
+package com.intellicart.bookservice.bootstrap;
+
+import com.intellicart.bookservice.domain.Book;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The bundled Goodreads export ({@code data/books.csv} from the book-service jar), parsed
+ * with the importer's own parser. Benchmarks that need more rows than the file holds get
+ * copies whose titles carry a volume suffix, so every row is distinct.
+ */
+public final class BenchmarkData {
+
+    private static final String CSV = "data/books.csv";
+
+    private static byte[] bytes;
+    private static List<Book> books;
+
+    private BenchmarkData() {
+    }
+
+    /** Raw bytes of the bundled export, header included. */
+    public static synchronized byte[] csvBytes() {
+        if (bytes == null) {
+            try (InputStream in = new ClassPathResource(CSV).getInputStream()) {
+                bytes = in.readAllBytes();
+            } catch (IOException e) {
+                throw new UncheckedIOException("bundled " + CSV + " not on the classpath", e);
+            }
+        }
+        return bytes;
+    }
+
+    /** Length of the header line, including its newline. */
+    static int headerLength(byte[] csv) {
+        for (int i = 0; i < csv.length; i++) {
+            if (csv[i] == '\n') return i + 1;
+        }
+        return csv.length;
+    }
+
+    static CsvColumns columns(byte[] csv) {
+        return CsvColumns.fromHeader(new String(csv, 0, headerLength(csv), StandardCharsets.UTF_8).trim());
+    }
+
+    /** Every row of the export as an unsaved book. */
+    public static synchronized List<Book> books() {
+        if (books == null) {
+            byte[] csv = csvBytes();
+            int header = headerLength(csv);
+            books = new Utf8CsvParser(columns(csv))
+                    .parse(ByteBuffer.wrap(csv, header, csv.length - header).slice())
+                    .books();
+        }
+        return books;
+    }
+
+    /** {@code n} books with ids 1..n, cycling through the export. */
+    public static List<Book> books(int n) {
+        List<Book> base = books();
+        List<Book> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            Book b = base.get(i % base.size());
+            int copy = i / base.size();
+            out.add(Book.builder()
+                    .id(i + 1L)
+                    .title(copy == 0 ? b.getTitle() : b.getTitle() + " vol. " + (copy + 1))
+                    .author(b.getAuthor())
+                    .description(b.getDescription())
+                    .genre(b.getGenre())
+                    .averageRating(b.getAverageRating())
+                    .sourceKey(b.getSourceKey() + "#" + copy)
+                    .contentHash(b.getContentHash())
+                    .build());
+        }
+        return out;
+    }
+}
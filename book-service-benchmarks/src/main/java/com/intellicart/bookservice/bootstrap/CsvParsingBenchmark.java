@@ -0,0 +1,92 @@
+package com.intellicart.bookservice.bootstrap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Import-side row handling on the bundled export: the whole-file parse one import worker
+ * does per chunk, and the per-field normalizers it calls for every row. The normalizer
+ * benchmarks run over the raw field values of the file, so the mix of clean and messy
+ * input is the real one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CsvParsingBenchmark {
+
+    private ByteBuffer body;
+    private Utf8CsvParser parser;
+    private String header;
+    private String[] headerNames;
+    private String[] titles;
+    private String[] authors;
+
+    @Setup
+    public void setUp() {
+        byte[] csv = BenchmarkData.csvBytes();
+        int headerLength = BenchmarkData.headerLength(csv);
+        CsvColumns columns = BenchmarkData.columns(csv);
+        header = new String(csv, 0, headerLength, StandardCharsets.UTF_8).trim();
+        headerNames = header.split(String.valueOf(columns.delimiter), -1);
+        body = ByteBuffer.wrap(csv, headerLength, csv.length - headerLength).slice();
+        parser = new Utf8CsvParser(columns);
+
+        // raw title and authors fields from a naive split; close enough to what the parser hands over
+        List<String> rawTitles = new ArrayList<>();
+        List<String> rawAuthors = new ArrayList<>();
+        for (String line : new String(csv, headerLength, csv.length - headerLength, StandardCharsets.UTF_8).split("\n")) {
+            String[] f = line.split(String.valueOf(columns.delimiter), -1);
+            if (columns.title >= 0 && columns.title < f.length) rawTitles.add(f[columns.title]);
+            if (columns.authors >= 0 && columns.authors < f.length) rawAuthors.add(f[columns.authors]);
+        }
+        titles = rawTitles.toArray(String[]::new);
+        authors = rawAuthors.toArray(String[]::new);
+    }
+
+    // results go to the Blackhole: the parser types are package-private, the generated code is not in this package
+
+    /** All rows of the file to books, single-threaded. */
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public void parseFile(Blackhole bh) {
+        bh.consume(parser.parse(body.duplicate()));
+    }
+
+    @Benchmark
+    public void resolveHeader(Blackhole bh) {
+        bh.consume(CsvColumns.fromHeader(header));
+    }
+
+    @Benchmark
+    public void collapseTitles(Blackhole bh) {
+        for (String t : titles) bh.consume(BookRowMapper.collapse(t));
+    }
+
+    @Benchmark
+    public void primaryAuthors(Blackhole bh) {
+        for (String a : authors) bh.consume(BookRowMapper.primaryAuthor(a));
+    }
+
+    @Benchmark
+    public void normHeaderNames(Blackhole bh) {
+        for (String n : headerNames) bh.consume(CsvColumns.norm(n));
+    }
+}
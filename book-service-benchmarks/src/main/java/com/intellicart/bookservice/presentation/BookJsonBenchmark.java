@@ -0,0 +1,70 @@
+package com.intellicart.bookservice.presentation;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.intellicart.bookservice.bootstrap.BenchmarkData;
+import com.intellicart.bookservice.domain.Book;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Response encoding of {@link BookController#all}: a keyset page as one JSON array, the
+ * way the message converter writes it, and the same books as the NDJSON export writes
+ * them, one {@code writeValueAsBytes} per line. Pages of 100 (the default) and 1000 (the cap).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookJsonBenchmark {
+
+    @Param({"100", "1000"})
+    public int pageSize;
+
+    private List<Book> page;
+    private ObjectWriter pageWriter;
+    private ObjectWriter bookWriter;
+    private final ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 20);
+
+    @Setup
+    public void setUp() {
+        // same defaults Spring Boot applies to the converter's mapper
+        ObjectMapper mapper = Jackson2ObjectMapperBuilder.json().build();
+        page = BenchmarkData.books(pageSize);
+        pageWriter = mapper.writerFor(new TypeReference<List<Book>>() {});
+        bookWriter = mapper.writerFor(Book.class);
+    }
+
+    @Benchmark
+    public byte[] jsonPage() throws IOException {
+        return pageWriter.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public int ndjsonLines() throws IOException {
+        out.reset();
+        for (Book b : page) {
+            out.write(bookWriter.writeValueAsBytes(b));
+            out.write('\n');
+        }
+        return out.size();
+    }
+}
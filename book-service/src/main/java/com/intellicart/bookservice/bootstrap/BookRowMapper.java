@@ -0,0 +1,123 @@
+package com.intellicart.bookservice.bootstrap;
+
+import com.intellicart.bookservice.domain.Book;
+
+/**
+ * Turns the raw CSV fields of one row into a {@link Book}. Stateless and allocation-light
+ * (no regexes) since it runs once per row on every import worker.
+ */
+final class BookRowMapper {
+
+    /**
+     * Version of the row mapping and of the stored search keys (title_key/author_key via
+     * SearchText). Part of the snapshot fingerprint: bump it whenever either changes, so a
+     * snapshot written by the old code is re-imported instead of restored.
+     */
+    static final int VERSION = 2;
+
+    static final int TITLE_MAX  = 1024; // cap to avoid DB length issues
+    static final int AUTHOR_MAX = 1024;
+
+    private BookRowMapper() {
+    }
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME  = 0x100000001b3L;
+
+    /**
+     * Returns null when the row has no usable title. {@code key} is the feed's natural key
+     * (bookID / ISBN); rows without one are keyed by a hash of title and author.
+     */
+    static Book toBook(String titleRaw, String authorsRaw, String avgStr, String lang, String key) {
+        if (isBlank(titleRaw)) return null;
+
+        String title  = cap(collapse(titleRaw), TITLE_MAX);
+        String author = cap(primaryAuthor(authorsRaw), AUTHOR_MAX);
+        Double avg    = parseDouble(avgStr);
+        String genre  = (notBlank(lang) ? "Lang:" + lang.trim() : "Unknown");
+
+        Book b = new Book();
+        b.setTitle(title);
+        b.setAuthor(author);
+        b.setGenre(genre);
+        b.setAverageRating(avg);
+        b.setDescription("Imported from Goodreads");
+        b.setSourceKey(key != null ? key : "h:" + Long.toHexString(mix(mix(FNV_OFFSET, title), author)));
+        b.setContentHash(fingerprint(b));
+        return b;
+    }
+
+    /** 64-bit FNV-1a over the imported columns. */
+    static long fingerprint(Book b) {
+        long h = FNV_OFFSET;
+        h = mix(h, b.getTitle());
+        h = mix(h, b.getAuthor());
+        h = mix(h, b.getGenre());
+        h = mix(h, b.getAverageRating() == null ? null : b.getAverageRating().toString());
+        h = mix(h, b.getDescription());
+        return h;
+    }
+
+    private static long mix(long h, String s) {
+        if (s != null) {
+            for (int i = 0; i < s.length(); i++) {
+                h ^= s.charAt(i);
+                h *= FNV_PRIME;
+            }
+        }
+        // field separator, so ("ab", "c") and ("a", "bc") hash differently
+        h ^= 0x1f;
+        h *= FNV_PRIME;
+        return h;
+    }
+
+    static boolean isBlank(String s) {
+        return s == null || s.trim().isEmpty();
+    }
+
+    static boolean notBlank(String s) {
+        return !isBlank(s);
+    }
+
+    /** Collapses whitespace runs to a single space and trims. */
+    static String collapse(String s) {
+        if (s == null) return null;
+        StringBuilder sb = new StringBuilder(s.length());
+        boolean pendingSpace = false;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (Character.isWhitespace(c)) {
+                pendingSpace = sb.length() > 0;
+            } else {
+                if (pendingSpace) {
+                    sb.append(' ');
+                    pendingSpace = false;
+                }
+                sb.append(c);
+            }
+        }
+        return sb.toString();
+    }
+
+    static String primaryAuthor(String authors) {
+        if (authors == null) return null;
+        String a = authors;
+        int slash = a.indexOf('/');
+        if (slash > 0) a = a.substring(0, slash);
+        return a.trim();
+    }
+
+    static String cap(String s, int max) {
+        if (s == null) return null;
+        return s.length() > max ? s.substring(0, max) : s;
+    }
+
+    static Double parseDouble(String s) {
+        if (isBlank(s)) return null;
+        try {
+            return Double.parseDouble(s.trim());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,356 @@
+package com.intellicart.bookservice.bootstrap;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary, column-oriented dump of the books table so a fresh node can restore the catalogue
+ * without re-parsing the CSV feed.
+ *
+ * <pre>
+ * header   int magic, int version, long sourceFingerprint, int rowCount, long maxId,
+ *          long[COLUMNS] byte offset of each column section
+ * numeric  id, content_hash: long per row; price, average_rating: double per row (NaN = null)
+ * strings  title, author, genre, description, source_key: per row a varint code
+ *          (0 = null, 1 = same as the previous row, n + 2 = n UTF-8 bytes follow)
+ * </pre>
+ *
+ * Rows are stored in id order in every column. The file is written to a temp file and moved
+ * into place, and is only trusted when its source fingerprint matches the current feed and
+ * importer. Each column section is mapped on its own and must stay under 2 GB. A restore is
+ * one transaction, so a snapshot that fails half way leaves nothing behind.
+ */
+@Component
+public class CatalogueSnapshot {
+
+    private static final Logger log = LoggerFactory.getLogger(CatalogueSnapshot.class);
+
+    private static final int MAGIC = 0x424B534E; // "BKSN"
+    private static final int VERSION = 1;
+
+    private static final int ID = 0;
+    private static final int CONTENT_HASH = 1;
+    private static final int PRICE = 2;
+    private static final int RATING = 3;
+    private static final int TITLE = 4;
+    private static final int AUTHOR = 5;
+    private static final int GENRE = 6;
+    private static final int DESCRIPTION = 7;
+    private static final int SOURCE_KEY = 8;
+    private static final int COLUMNS = 9;
+
+    private static final String[] COLUMN_NAMES = {
+            "id", "content_hash", "price", "average_rating",
+            "title", "author", "genre", "description", "source_key"
+    };
+
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 4 + 8 + 8 * COLUMNS;
+
+    private final JdbcTemplate jdbc;
+    private final BookBatchWriter writer;
+    private final TransactionTemplate tx;
+
+    @Value("${app.books.import.batch-size:500}")
+    private int batchSize;
+
+    public CatalogueSnapshot(JdbcTemplate jdbc, BookBatchWriter writer, PlatformTransactionManager transactions) {
+        this.jdbc = jdbc;
+        this.writer = writer;
+        this.tx = new TransactionTemplate(transactions);
+    }
+
+    /**
+     * Restores an empty catalogue from {@code file}. Returns false, leaving the table as it
+     * was, when there is no usable snapshot for {@code sourceFingerprint} or the table is
+     * not empty by the time the restore starts.
+     */
+    public boolean restore(Path file, long sourceFingerprint) {
+        if (!Files.isRegularFile(file)) {
+            return false;
+        }
+        long started = System.nanoTime();
+        try {
+            ByteBuffer[] col = new ByteBuffer[COLUMNS];
+            int rows;
+            long maxId;
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                long size = ch.size();
+                ByteBuffer header = size < HEADER_SIZE ? null : ch.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+                if (header == null || header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+                    log.warn("Ignoring {}: not a catalogue snapshot (v{})", file, VERSION);
+                    return false;
+                }
+                if (header.getLong(8) != sourceFingerprint) {
+                    log.info("Ignoring {}: written for a different version of the feed or of the importer", file);
+                    return false;
+                }
+                rows = header.getInt(16);
+                maxId = header.getLong(20);
+
+                // one mapping per column section: the file may pass 2 GB, a single buffer cannot
+                for (int c = 0; c < COLUMNS; c++) {
+                    long from = header.getLong(28 + 8 * c);
+                    long to = c + 1 < COLUMNS ? header.getLong(28 + 8 * (c + 1)) : size;
+                    if (from < HEADER_SIZE || to < from || to > size) {
+                        throw new IOException("corrupt offset for column " + COLUMN_NAMES[c]);
+                    }
+                    if (to - from > Integer.MAX_VALUE) {
+                        throw new IOException("column " + COLUMN_NAMES[c] + " is larger than 2 GB");
+                    }
+                    col[c] = ch.map(FileChannel.MapMode.READ_ONLY, from, to - from);
+                }
+            }
+
+            Boolean restored = tx.execute(status -> {
+                Long existing = jdbc.queryForObject("SELECT COUNT(*) FROM books", Long.class);
+                if (existing != null && existing > 0) {
+                    log.info("Ignoring {}: the catalogue already holds {} books", file, existing);
+                    return false;
+                }
+                insert(col, rows);
+                writer.restartIdSequence(maxId);
+                return true;
+            });
+            if (!Boolean.TRUE.equals(restored)) {
+                return false;
+            }
+
+            log.info("Restored {} books from snapshot {} in {} ms",
+                    rows, file, (System.nanoTime() - started) / 1_000_000);
+            return true;
+        } catch (IOException | RuntimeException e) {
+            // the restore transaction, if it started, has been rolled back
+            log.warn("Could not restore snapshot {}, falling back to the feed: {}", file, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Decodes {@code rows} rows from the mapped column sections and inserts them in batches. */
+    private void insert(ByteBuffer[] col, int rows) {
+        StringColumn title = new StringColumn(col[TITLE]);
+        StringColumn author = new StringColumn(col[AUTHOR]);
+        StringColumn genre = new StringColumn(col[GENRE]);
+        StringColumn description = new StringColumn(col[DESCRIPTION]);
+        StringColumn sourceKey = new StringColumn(col[SOURCE_KEY]);
+
+        int size = Math.max(1, batchSize);
+        List<Book> batch = new ArrayList<>(size);
+        for (int i = 0; i < rows; i++) {
+            Book b = new Book();
+            b.setId(col[ID].getLong());
+            long hash = col[CONTENT_HASH].getLong();
+            b.setContentHash(hash == 0 ? null : hash);
+            b.setPrice(nullable(col[PRICE].getDouble()));
+            b.setAverageRating(nullable(col[RATING].getDouble()));
+            b.setTitle(title.next());
+            b.setAuthor(author.next());
+            b.setGenre(genre.next());
+            b.setDescription(description.next());
+            b.setSourceKey(sourceKey.next());
+            batch.add(b);
+            if (batch.size() >= size) {
+                writer.insertWithIds(batch);
+                batch = new ArrayList<>(size);
+            }
+        }
+        if (!batch.isEmpty()) {
+            writer.insertWithIds(batch);
+        }
+    }
+
+    /** Writes the current books table to {@code file}, replacing it atomically. */
+    @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+    public void write(Path file, long sourceFingerprint) throws IOException {
+        long started = System.nanoTime();
+        Path dir = file.toAbsolutePath().getParent();
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, file.getFileName().toString(), ".tmp");
+
+        int rows;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM books", Integer.class);
+            Long maxId = jdbc.queryForObject("SELECT MAX(id) FROM books", Long.class);
+            rows = count == null ? 0 : count;
+
+            ColumnWriter out = new ColumnWriter(ch, HEADER_SIZE);
+            long[] offsets = new long[COLUMNS];
+            for (int c = 0; c < COLUMNS; c++) {
+                offsets[c] = out.position();
+                writeColumn(out, c);
+            }
+            out.flush();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putInt(VERSION)
+                    .putLong(sourceFingerprint)
+                    .putInt(rows)
+                    .putLong(maxId == null ? 0 : maxId);
+            for (long offset : offsets) {
+                header.putLong(offset);
+            }
+            header.flip();
+            while (header.hasRemaining()) {
+                ch.write(header, header.position());
+            }
+            ch.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.info("Wrote snapshot of {} books to {} in {} ms", rows, file, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /** Streams one column of the table, in id order, straight into the file. */
+    private void writeColumn(ColumnWriter out, int column) {
+        String sql = "SELECT " + COLUMN_NAMES[column] + " FROM books ORDER BY id";
+        switch (column) {
+            case ID, CONTENT_HASH -> jdbc.query(sql, rs -> {
+                out.putLong(rs.getLong(1)); // a null hash reads back as 0
+            });
+            case PRICE, RATING -> jdbc.query(sql, rs -> {
+                double v = rs.getDouble(1);
+                out.putDouble(rs.wasNull() ? Double.NaN : v);
+            });
+            default -> {
+                String[] previous = {null};
+                jdbc.query(sql, rs -> {
+                    String v = rs.getString(1);
+                    if (v == null) {
+                        out.putVarint(0);
+                    } else if (v.equals(previous[0])) {
+                        out.putVarint(1);
+                    } else {
+                        byte[] bytes = v.getBytes(StandardCharsets.UTF_8);
+                        out.putVarint(bytes.length + 2);
+                        out.putBytes(bytes);
+                    }
+                    previous[0] = v;
+                });
+            }
+        }
+    }
+
+    private static Double nullable(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
+
+    /** Sequential reader over one string column section. */
+    private static final class StringColumn {
+        private final ByteBuffer buf;
+        private String previous;
+
+        StringColumn(ByteBuffer buf) {
+            this.buf = buf;
+        }
+
+        String next() {
+            int code = readVarint(buf);
+            if (code == 0) {
+                previous = null;
+            } else if (code > 1) {
+                byte[] bytes = new byte[code - 2];
+                buf.get(bytes);
+                previous = new String(bytes, StandardCharsets.UTF_8);
+            }
+            return previous;
+        }
+
+        private static int readVarint(ByteBuffer buf) {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = buf.get();
+                value |= (b & 0x7f) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return value;
+        }
+    }
+
+    /** Buffered sequential writer that starts after the (later patched) header. */
+    private static final class ColumnWriter {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(1 << 16);
+        private long position;
+
+        ColumnWriter(FileChannel ch, long start) {
+            this.ch = ch;
+            this.position = start;
+        }
+
+        long position() {
+            return position + buf.position();
+        }
+
+        void putLong(long v) {
+            ensure(8);
+            buf.putLong(v);
+        }
+
+        void putDouble(double v) {
+            ensure(8);
+            buf.putDouble(v);
+        }
+
+        void putVarint(int v) {
+            ensure(5);
+            while ((v & ~0x7f) != 0) {
+                buf.put((byte) ((v & 0x7f) | 0x80));
+                v >>>= 7;
+            }
+            buf.put((byte) v);
+        }
+
+        void putBytes(byte[] bytes) {
+            int off = 0;
+            while (off < bytes.length) {
+                ensure(1);
+                int n = Math.min(buf.remaining(), bytes.length - off);
+                buf.put(bytes, off, n);
+                off += n;
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (buf.remaining() < bytes) {
+                flush();
+            }
+        }
+
+        void flush() {
+            buf.flip();
+            try {
+                while (buf.hasRemaining()) {
+                    position += ch.write(buf, position);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buf.clear();
+        }
+    }
+}
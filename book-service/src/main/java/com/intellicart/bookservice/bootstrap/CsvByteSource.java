@@ -0,0 +1,84 @@
+package com.intellicart.bookservice.bootstrap;
+
+import org.springframework.core.io.Resource;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Read-only byte view of the import file. Files on disk are memory-mapped one slice at a
+ * time, so multi-GB exports never pass through the heap; anything else (e.g. the bundled
+ * classpath resource inside the jar) is read into a heap buffer once.
+ */
+final class CsvByteSource implements Closeable {
+
+    private static final int SCAN_WINDOW = 8 << 20;
+
+    private final FileChannel channel; // null when backed by the heap buffer
+    private final ByteBuffer heap;
+    private final long size;
+
+    private CsvByteSource(FileChannel channel, ByteBuffer heap, long size) {
+        this.channel = channel;
+        this.heap = heap;
+        this.size = size;
+    }
+
+    static CsvByteSource open(Resource res) throws IOException {
+        if (res.isFile()) {
+            FileChannel ch = FileChannel.open(res.getFile().toPath(), StandardOpenOption.READ);
+            return new CsvByteSource(ch, null, ch.size());
+        }
+        try (var in = res.getInputStream()) {
+            byte[] bytes = in.readAllBytes();
+            return new CsvByteSource(null, ByteBuffer.wrap(bytes), bytes.length);
+        }
+    }
+
+    long size() {
+        return size;
+    }
+
+    /** View of the bytes in [pos, pos + len); mapped views stay valid after close(). */
+    ByteBuffer slice(long pos, int len) throws IOException {
+        if (channel != null) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, pos, len);
+        }
+        return heap.slice((int) pos, len);
+    }
+
+    /**
+     * Returns the end (exclusive) of the first record that ends at or after {@code target},
+     * starting from the record boundary {@code from}. Newlines inside quoted fields are not
+     * record boundaries, so the quote state is tracked from {@code from} onwards. '"' and
+     * '\n' never occur inside multi-byte UTF-8 sequences, so scanning raw bytes is safe.
+     */
+    long nextBoundary(long from, long target) throws IOException {
+        boolean quoted = false;
+        long pos = from;
+        while (pos < size) {
+            int len = (int) Math.min(SCAN_WINDOW, size - pos);
+            ByteBuffer window = slice(pos, len);
+            for (int i = 0; i < len; i++) {
+                byte c = window.get(i);
+                if (c == '"') {
+                    quoted = !quoted;
+                } else if (c == '\n' && !quoted && pos + i >= target) {
+                    return pos + i + 1;
+                }
+            }
+            pos += len;
+        }
+        return size;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.intellicart.bookservice.bootstrap;
+
+import java.util.regex.Pattern;
+
+/**
+ * Column positions of the fields the importer uses, resolved once from the header line
+ * so rows are read by index instead of re-matching header names per column per row.
+ */
+final class CsvColumns {
+
+    final char delimiter;
+    final int title;
+    final int authors;
+    final int averageRating;
+    final int languageCode;
+    final int bookId;
+    final int isbn;
+
+    private CsvColumns(char delimiter, int title, int authors, int averageRating, int languageCode,
+                       int bookId, int isbn) {
+        this.delimiter = delimiter;
+        this.title = title;
+        this.authors = authors;
+        this.averageRating = averageRating;
+        this.languageCode = languageCode;
+        this.bookId = bookId;
+        this.isbn = isbn;
+    }
+
+    static CsvColumns fromHeader(String headerLine) {
+        char delimiter = delimiterOf(headerLine);
+        int[] at = indexesOf(headerLine, "title", "authors", "average_rating", "language_code", "bookID", "isbn");
+        return new CsvColumns(delimiter, at[0], at[1], at[2], at[3], at[4], at[5]);
+    }
+
+    /** Tab when the header contains one, comma otherwise. */
+    static char delimiterOf(String headerLine) {
+        return headerLine.indexOf('\t') >= 0 ? '\t' : ',';
+    }
+
+    /** Position of each wanted column in the header, -1 when absent; names compare by {@link #norm}. */
+    static int[] indexesOf(String headerLine, String... wanted) {
+        String line = headerLine.startsWith("\uFEFF") ? headerLine.substring(1) : headerLine;
+        String[] raw = line.split(Pattern.quote(String.valueOf(delimiterOf(line))), -1);
+        String[] names = new String[raw.length];
+        for (int i = 0; i < raw.length; i++) {
+            names[i] = norm(raw[i]);
+        }
+        int[] at = new int[wanted.length];
+        for (int w = 0; w < wanted.length; w++) {
+            at[w] = indexOf(names, wanted[w]);
+        }
+        return at;
+    }
+
+    private static int indexOf(String[] names, String want) {
+        String wantNorm = norm(want);
+        for (int i = 0; i < names.length; i++) {
+            if (names[i].equals(wantNorm)) return i;
+        }
+        return -1;
+    }
+
+    /** Lower-cases and drops whitespace/underscores, so "  num_pages" matches "numpages". */
+    static String norm(String s) {
+        if (s == null) return "";
+        StringBuilder sb = new StringBuilder(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c == '_' || Character.isWhitespace(c)) continue;
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+}
@@ -1,35 +1,54 @@
 package com.intellicart.bookservice.bootstrap;
 
 import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
+import com.intellicart.bookservice.infrastructure.BookFingerprint;
 import com.intellicart.bookservice.infrastructure.BookRepository;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
+import com.intellicart.bookservice.service.BookService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 
 @Component
 @ConditionalOnProperty(name = "app.books.import.enabled", havingValue = "true", matchIfMissing = true)
 public class CsvLoader implements CommandLineRunner {
 
-    private static final int TITLE_MAX  = 1024; // cap to avoid DB length issues
-    private static final int AUTHOR_MAX = 1024;
+    private static final Logger log = LoggerFactory.getLogger(CsvLoader.class);
 
     private final BookRepository repo;
+    private final BookBatchWriter writer;
+    private final CatalogueSnapshot snapshot;
+    private final BookService bookService;
     private final ResourceLoader resources;
 
-    public CsvLoader(BookRepository repo, ResourceLoader resources) {
+    public CsvLoader(BookRepository repo, BookBatchWriter writer, CatalogueSnapshot snapshot,
+                     BookService bookService, ResourceLoader resources) {
         this.repo = repo;
+        this.writer = writer;
+        this.snapshot = snapshot;
+        this.bookService = bookService;
         this.resources = resources;
     }
 
@@ -39,9 +58,38 @@ public class CsvLoader implements CommandLineRunner {
     @Value("${app.books.import.limit:0}")
     private int importLimit;
 
+    @Value("${app.books.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.books.import.chunk-size:262144}")
+    private int chunkSize;
+
+    /** Parse workers; 0 means one per available core. */
+    @Value("${app.books.import.parallelism:0}")
+    private int parallelism;
+
+    /** "full" only loads an empty catalogue; "delta" also diffs a populated one against the feed. */
+    @Value("${app.books.import.mode:full}")
+    private String mode;
+
+    /** Binary snapshot written after an import and restored on the next boot; blank disables it. */
+    @Value("${app.books.snapshot.path:}")
+    private String snapshotPath;
+
     @Override
     public void run(String... args) throws Exception {
-        if (repo.count() > 0) {
+        importCatalogue("delta".equalsIgnoreCase(mode));
+    }
+
+    /** Periodic feed refresh, off unless app.books.import.refresh-cron is set. */
+    @Scheduled(cron = "${app.books.import.refresh-cron:-}")
+    public void refresh() throws Exception {
+        importCatalogue(true);
+    }
+
+    private synchronized void importCatalogue(boolean delta) throws Exception {
+        boolean empty = repo.count() == 0;
+        if (!empty && !delta) {
             return;
         }
 
@@ -50,135 +98,187 @@ public class CsvLoader implements CommandLineRunner {
             return;
         }
 
-        int imported = 0;
-        int skipped = 0;
-
-        try (var in = res.getInputStream();
-             var reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+        long feed = feedFingerprint(res);
+        Path snapshotFile = snapshotPath == null || snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        if (empty && snapshotFile != null && snapshot.restore(snapshotFile, feed)) {
+            bookService.reindex();
+            return; // the snapshot was taken from this very feed, nothing to diff
+        }
 
-            String headerLine = reader.readLine();
-            if (headerLine == null) {
-                return;
+        boolean changed = empty ? fullImport(res) : deltaImport(res);
+        if (changed) {
+            bookService.reindex();
+        }
+        if (changed && snapshotFile != null) {
+            try {
+                snapshot.write(snapshotFile, feed);
+            } catch (Exception e) {
+                log.warn("Could not write catalogue snapshot {}: {}", snapshotFile, e.getMessage());
             }
+        }
+    }
+
+    /**
+     * Cheap identity of the feed file and of the code mapping it; a snapshot is only reused
+     * for the feed, and the importer version, it was taken from.
+     */
+    private long feedFingerprint(Resource res) {
+        long fp = (csvPath.hashCode() * 31L + importLimit) * 31 + BookRowMapper.VERSION;
+        try {
+            fp = fp * 31 + res.contentLength();
+            fp = fp * 31 + res.lastModified();
+        } catch (IOException e) {
+            // fall back to whatever was readable
+        }
+        return fp;
+    }
 
-            char delimiter = headerLine.contains("\t") ? '\t' : ',';
+    private boolean fullImport(Resource res) throws Exception {
+        long started = System.nanoTime();
+        int[] imported = {0};
 
-            String[] rawHeaders = headerLine.split(String.valueOf(delimiter), -1);
-            List<String> headerList = new ArrayList<>();
-            for (String h : rawHeaders) {
-                String trimmed = h == null ? "" : h.trim();
-                if (!trimmed.isEmpty()) {
-                    headerList.add(trimmed);
-                }
-            }
-            String[] headers = headerList.toArray(new String[0]);
-
-            CSVFormat format = CSVFormat.Builder.create()
-                    .setHeader(headers)
-                    .setSkipHeaderRecord(false)
-                    .setIgnoreHeaderCase(true)
-                    .setTrim(true)
-                    .setIgnoreSurroundingSpaces(true)
-                    .setDelimiter(delimiter)
-                    .build();
-
-            try (var parser = new CSVParser(reader, format)) {
-
-                for (CSVRecord r : parser) {
-                    try {
-                        if (importLimit > 0 && imported >= importLimit) break;
-
-                        String titleRaw   = get(r, parser.getHeaderNames(), "title");
-                        String authorsRaw = get(r, parser.getHeaderNames(), "authors");
-                        String avgStr     = get(r, parser.getHeaderNames(), "average_rating");
-                        String lang       = get(r, parser.getHeaderNames(), "language_code");
-
-                        if (isBlank(titleRaw)) { skipped++; continue; }
-
-                        String title  = cap(collapse(titleRaw), TITLE_MAX);
-                        String author = cap(primaryAuthor(authorsRaw), AUTHOR_MAX);
-                        Double avg    = parseDouble(avgStr);
-                        String genre  = (notBlank(lang) ? "Lang:" + lang.trim() : "Unknown");
-
-                        Book b = new Book();
-                        b.setTitle(title);
-                        b.setAuthor(author);
-                        b.setGenre(genre);
-                        b.setAverageRating(avg);
-                        b.setDescription("Imported from Goodreads");
-
-                        repo.save(b);
-                        imported++;
-                        if (imported % 1000 == 0) {
-                        }
-                    } catch (Exception rowEx) {
-                        skipped++;
-                    }
-                }
-            }
+        Stats stats = forEachChunk(res, books -> {
+            writeBatches(books, writer::insert);
+            imported[0] += books.size();
+        });
+        if (stats == null) {
+            return false;
         }
+
+        long millis = elapsedMillis(started);
+        log.info("Imported {} books from {} in {} ms ({} rows/s, {} workers), skipped {}",
+                imported[0], csvPath, millis, imported[0] * 1000L / millis, stats.workers, stats.skipped);
+        return imported[0] > 0;
     }
-    private static String get(CSVRecord r, List<String> headers, String want) {
-        String v = getRaw(r, want);
-        if (v != null) return v;
-
-        String wantNorm = norm(want);
-        for (String h : headers) {
-            if (isBlank(h)) continue;
-            if (norm(h).equals(wantNorm)) {
-                return getRaw(r, h);
+
+    /**
+     * Diffs the feed against the stored catalogue by natural key: new keys are inserted,
+     * rows whose content hash changed are rewritten and keys missing from the feed are
+     * deleted, all in JDBC batches. Unchanged rows cost one hash comparison.
+     */
+    private boolean deltaImport(Resource res) throws Exception {
+        long started = System.nanoTime();
+
+        Map<String, BookFingerprint> existing = new HashMap<>();
+        List<Long> removed = new ArrayList<>();
+        for (BookFingerprint fp : repo.findAllFingerprints()) {
+            if (existing.putIfAbsent(fp.sourceKey(), fp) != null) {
+                removed.add(fp.id()); // duplicate key, keep the first row only
             }
-            if (norm(h).equals("numpages") && wantNorm.equals("numpages")) {
-                return getRaw(r, h);
+        }
+
+        Set<String> seen = new HashSet<>();
+        int[] counts = new int[3]; // inserted, updated, unchanged
+        Stats stats = forEachChunk(res, books -> {
+            List<Book> inserts = new ArrayList<>();
+            List<Book> updates = new ArrayList<>();
+            for (Book b : books) {
+                if (!seen.add(b.getSourceKey())) {
+                    continue; // repeated key within the feed
+                }
+                BookFingerprint fp = existing.remove(b.getSourceKey());
+                if (fp == null) {
+                    inserts.add(b);
+                } else if (!Objects.equals(fp.contentHash(), b.getContentHash())) {
+                    b.setId(fp.id());
+                    updates.add(b);
+                } else {
+                    counts[2]++;
+                }
             }
+            writeBatches(inserts, writer::insert);
+            writeBatches(updates, writer::update);
+            counts[0] += inserts.size();
+            counts[1] += updates.size();
+        });
+        if (stats == null) {
+            return false;
         }
-        return null;
-    }
 
-    private static String getRaw(CSVRecord r, String header) {
-        try {
-            String v = r.get(header);
-            return v != null ? v.trim() : null;
-        } catch (IllegalArgumentException e) {
-            return null;
+        // a truncated feed says nothing about the rows past the limit
+        if (!stats.truncated) {
+            for (BookFingerprint fp : existing.values()) {
+                removed.add(fp.id());
+            }
         }
-    }
+        writeBatches(removed, writer::delete);
 
-    private static String norm(String s) {
-        return s == null ? "" : s.toLowerCase().replaceAll("[\\s_]+", "");
+        log.info("Delta import of {}: {} inserted, {} updated, {} unchanged, {} deleted in {} ms, skipped {}",
+                csvPath, counts[0], counts[1], counts[2], removed.size(), elapsedMillis(started), stats.skipped);
+        return counts[0] + counts[1] + removed.size() > 0;
     }
 
-    private static boolean isBlank(String s) {
-        return s == null || s.trim().isEmpty();
+    @FunctionalInterface
+    private interface ChunkHandler {
+        void accept(List<Book> books) throws Exception;
     }
 
-    private static boolean notBlank(String s) {
-        return !isBlank(s);
-    }
+    private record Stats(int skipped, int workers, boolean truncated) {}
 
-    private static String collapse(String s) {
-        return s == null ? null : s.replaceAll("\\s+", " ").trim();
-    }
+    /**
+     * Maps and parses record-aligned chunks on a fork-join pool while this thread hands the
+     * finished chunks to {@code handler} in file order. At most two chunks per worker are
+     * parsed ahead of the handler. Returns null when the file has no title column.
+     */
+    private Stats forEachChunk(Resource res, ChunkHandler handler) throws Exception {
+        int workers = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        int produced = 0;
+        int skipped = 0;
+        boolean truncated = false;
+
+        try (CsvByteSource src = CsvByteSource.open(res)) {
+            long headerEnd = src.nextBoundary(0, 0);
+            String headerLine = StandardCharsets.UTF_8.decode(src.slice(0, (int) headerEnd)).toString();
+            CsvColumns columns = CsvColumns.fromHeader(headerLine.trim());
+            if (columns.title < 0) {
+                log.warn("No title column in {}, nothing imported", csvPath);
+                return null;
+            }
+            Utf8CsvParser chunkParser = new Utf8CsvParser(columns);
+
+            int window = workers * 2;
+            long length = src.size();
+
+            ForkJoinPool pool = new ForkJoinPool(workers);
+            Deque<ForkJoinTask<Utf8CsvParser.Chunk>> inFlight = new ArrayDeque<>();
+            try {
+                long pos = headerEnd;
+                while (pos < length || !inFlight.isEmpty()) {
+                    while (pos < length && inFlight.size() < window) {
+                        long from = pos;
+                        long to = src.nextBoundary(from, from + Math.max(1, chunkSize));
+                        inFlight.add(pool.submit(() -> chunkParser.parse(src.slice(from, (int) (to - from)))));
+                        pos = to;
+                    }
 
-    private static String primaryAuthor(String authors) {
-        if (authors == null) return null;
-        String a = authors;
-        int slash = a.indexOf('/');
-        if (slash > 0) a = a.substring(0, slash);
-        return a.trim();
+                    Utf8CsvParser.Chunk chunk = inFlight.poll().join();
+                    skipped += chunk.skipped();
+                    List<Book> books = chunk.books();
+                    if (importLimit > 0 && produced + books.size() >= importLimit) {
+                        truncated = pos < length || !inFlight.isEmpty() || produced + books.size() > importLimit;
+                        books = books.subList(0, importLimit - produced);
+                    }
+                    handler.accept(books);
+                    produced += books.size();
+                    if (importLimit > 0 && produced >= importLimit) {
+                        break;
+                    }
+                }
+            } finally {
+                pool.shutdownNow();
+            }
+        }
+        return new Stats(skipped, workers, truncated);
     }
 
-    private static String cap(String s, int max) {
-        if (s == null) return null;
-        return s.length() > max ? s.substring(0, max) : s;
+    private <T> void writeBatches(List<T> rows, Consumer<List<T>> write) {
+        int size = Math.max(1, batchSize);
+        for (int i = 0; i < rows.size(); i += size) {
+            write.accept(rows.subList(i, Math.min(rows.size(), i + size)));
+        }
     }
 
-    private static Double parseDouble(String s) {
-        if (isBlank(s)) return null;
-        try {
-            return Double.parseDouble(s);
-        } catch (Exception e) {
-            return null;
-        }
+    private static long elapsedMillis(long startedNanos) {
+        return Math.max(1, (System.nanoTime() - startedNanos) / 1_000_000);
     }
 }
@@ -0,0 +1,109 @@
+package com.intellicart.bookservice.bootstrap;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * Streams a UTF-8 CSV/TSV input through the catalogue importer's parser, so other feeds
+ * share its header matching, delimiter detection and quoting rules. The input is read in
+ * blocks and only whole records are parsed; a record cut by a block boundary waits for
+ * the next block. Only the requested columns are ever decoded.
+ */
+public final class CsvRecordReader {
+
+    private static final int BLOCK = 64 << 10;
+
+    private final InputStream in;
+    private int[] columns;
+    private Utf8CsvParser parser;
+    private byte[] buf = new byte[BLOCK];
+    private int len;     // buffered bytes, starting at a record boundary
+    private boolean eof;
+
+    private CsvRecordReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Reads the header line of {@code in} and resolves {@code names} against it, matched as
+     * the importer matches its header. Returns null for an empty input.
+     */
+    public static CsvRecordReader open(InputStream in, String... names) throws IOException {
+        CsvRecordReader r = new CsvRecordReader(in);
+        int nl;
+        while ((nl = r.indexOf((byte) '\n')) < 0 && r.fill()) {
+            // keep reading until the header line is complete
+        }
+        if (r.len == 0) return null;
+        int headerEnd = nl < 0 ? r.len : nl + 1;
+        String header = new String(r.buf, 0, headerEnd, StandardCharsets.UTF_8).trim();
+        r.consume(headerEnd);
+        r.columns = CsvColumns.indexesOf(header, names);
+        r.parser = new Utf8CsvParser(CsvColumns.delimiterOf(header), r.columns);
+        return r;
+    }
+
+    /** Whether the header had the i-th requested column. */
+    public boolean has(int i) {
+        return columns[i] >= 0;
+    }
+
+    /**
+     * Hands each record's requested fields to {@code action}, in the order they were
+     * requested, null for a missing one. The array is reused for the next record.
+     */
+    public void forEach(Consumer<String[]> action) throws IOException {
+        while (true) {
+            int end = eof ? len : lastRecordEnd();
+            if (end > 0) {
+                parser.forEachRecord(ByteBuffer.wrap(buf, 0, end), action);
+                consume(end);
+            }
+            if (eof) return;
+            fill();
+        }
+    }
+
+    /** End of the last complete record buffered; newlines inside quotes do not count. */
+    private int lastRecordEnd() {
+        boolean quoted = false;
+        int last = 0;
+        for (int i = 0; i < len; i++) {
+            byte c = buf[i];
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == '\n' && !quoted) {
+                last = i + 1;
+            }
+        }
+        return last;
+    }
+
+    private int indexOf(byte b) {
+        for (int i = 0; i < len; i++) {
+            if (buf[i] == b) return i;
+        }
+        return -1;
+    }
+
+    /** Reads the next block, growing the buffer when a single record outgrows it; false at the end. */
+    private boolean fill() throws IOException {
+        if (len == buf.length) buf = Arrays.copyOf(buf, buf.length * 2);
+        int read = in.read(buf, len, buf.length - len);
+        if (read < 0) {
+            eof = true;
+            return false;
+        }
+        len += read;
+        return true;
+    }
+
+    private void consume(int n) {
+        System.arraycopy(buf, n, buf, 0, len - n);
+        len -= n;
+    }
+}
@@ -0,0 +1,189 @@
+package com.intellicart.bookservice.bootstrap;
+
+import com.intellicart.bookservice.domain.Book;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Parses record-aligned slices of a UTF-8 CSV/TSV file straight from the bytes. Only the
+ * columns the importer uses (title, authors, average_rating, language_code and the
+ * bookID/isbn natural keys) are ever decoded into strings; every other field is skipped
+ * by offset. Instances are immutable and shared by all import workers, each call keeps
+ * its own scratch state.
+ */
+final class Utf8CsvParser {
+
+    record Chunk(List<Book> books, int skipped) {}
+
+    private static final int TITLE = 0;
+    private static final int AUTHORS = 1;
+    private static final int RATING = 2;
+    private static final int LANG = 3;
+    private static final int BOOK_ID = 4;
+    private static final int ISBN = 5;
+
+    private final byte delimiter;
+    private final int slots;
+    private final int[] slotOf; // column index -> slot, -1 for columns that are never decoded
+
+    Utf8CsvParser(CsvColumns columns) {
+        this(columns.delimiter, columns.title, columns.authors, columns.averageRating, columns.languageCode,
+                columns.bookId, columns.isbn);
+    }
+
+    /** Decodes {@code columns[i]} into slot i of each record; -1 marks a column the file lacks. */
+    Utf8CsvParser(char delimiter, int... columns) {
+        this.delimiter = (byte) delimiter;
+        this.slots = columns.length;
+        int max = -1;
+        for (int c : columns) max = Math.max(max, c);
+        this.slotOf = new int[max + 1];
+        Arrays.fill(slotOf, -1);
+        for (int slot = 0; slot < columns.length; slot++) {
+            if (columns[slot] >= 0) slotOf[columns[slot]] = slot;
+        }
+    }
+
+    Chunk parse(ByteBuffer buf) {
+        List<Book> books = new ArrayList<>();
+        int[] skipped = {0};
+        forEachRecord(buf, values -> {
+            try {
+                Book b = BookRowMapper.toBook(values[TITLE], values[AUTHORS], values[RATING], values[LANG],
+                        naturalKey(values[BOOK_ID], values[ISBN]));
+                if (b == null) {
+                    skipped[0]++;
+                } else {
+                    books.add(b);
+                }
+            } catch (Exception rowEx) {
+                skipped[0]++;
+            }
+        });
+        return new Chunk(books, skipped[0]);
+    }
+
+    /**
+     * Hands the decoded slots of every record in {@code buf} to {@code action}, null for a
+     * missing field. The array is reused for the next record.
+     */
+    void forEachRecord(ByteBuffer buf, Consumer<String[]> action) {
+        new Scan(buf).run(action);
+    }
+
+    private static String naturalKey(String bookId, String isbn) {
+        if (BookRowMapper.notBlank(bookId)) return bookId.trim();
+        if (BookRowMapper.notBlank(isbn)) return "isbn:" + isbn.trim();
+        return null;
+    }
+
+    /** Per-call cursor and scratch buffers. */
+    private final class Scan {
+        private final ByteBuffer buf;
+        private final int n;
+        private final int[] start = new int[slots];
+        private final int[] end = new int[slots];
+        private final boolean[] escaped = new boolean[slots];
+        private final String[] values = new String[slots];
+        private byte[] scratch = new byte[256];
+
+        Scan(ByteBuffer buf) {
+            this.buf = buf;
+            this.n = buf.limit();
+        }
+
+        void run(Consumer<String[]> action) {
+            int pos = 0;
+            while (pos < n) {
+                byte c = buf.get(pos);
+                if (c == '\n') { pos++; continue; }
+                if (c == '\r' && pos + 1 < n && buf.get(pos + 1) == '\n') { pos += 2; continue; }
+
+                Arrays.fill(start, -1);
+                pos = record(pos);
+                for (int s = 0; s < slots; s++) {
+                    values[s] = start[s] < 0 ? null : decode(start[s], end[s], escaped[s]);
+                }
+                action.accept(values);
+            }
+        }
+
+        /** Records the offsets of the wanted fields of the record at pos; returns the next record's start. */
+        private int record(int pos) {
+            int field = 0;
+            while (true) {
+                int s = pos;
+                while (s < n && isPad(buf.get(s))) s++;
+
+                int from;
+                int to;
+                int next;
+                boolean esc = false;
+                if (s < n && buf.get(s) == '"') {
+                    int q = s + 1;
+                    while (q < n) {
+                        if (buf.get(q) == '"') {
+                            if (q + 1 < n && buf.get(q + 1) == '"') { esc = true; q += 2; continue; }
+                            break;
+                        }
+                        q++;
+                    }
+                    from = s + 1;
+                    to = Math.min(q, n);
+                    next = Math.min(q + 1, n);
+                    while (next < n && buf.get(next) != delimiter && buf.get(next) != '\n') next++;
+                } else {
+                    int e = s;
+                    while (e < n && buf.get(e) != delimiter && buf.get(e) != '\n') e++;
+                    next = e;
+                    while (e > s && (isPad(buf.get(e - 1)) || buf.get(e - 1) == '\r')) e--;
+                    from = s;
+                    to = e;
+                }
+
+                if (field < slotOf.length && slotOf[field] >= 0) {
+                    int slot = slotOf[field];
+                    start[slot] = from;
+                    end[slot] = to;
+                    escaped[slot] = esc;
+                }
+                field++;
+
+                if (next >= n) return n;
+                if (buf.get(next) == '\n') return next + 1;
+                pos = next + 1; // delimiter
+            }
+        }
+
+        private boolean isPad(byte c) {
+            return c == ' ' || (c == '\t' && delimiter != '\t');
+        }
+
+        private String decode(int from, int to, boolean esc) {
+            int len = to - from;
+            if (len <= 0) return "";
+            if (!esc && buf.hasArray()) {
+                return new String(buf.array(), buf.arrayOffset() + from, len, StandardCharsets.UTF_8);
+            }
+            if (scratch.length < len) {
+                scratch = new byte[Math.max(len, scratch.length * 2)];
+            }
+            if (!esc) {
+                buf.get(from, scratch, 0, len);
+                return new String(scratch, 0, len, StandardCharsets.UTF_8);
+            }
+            int k = 0;
+            for (int i = from; i < to; i++) {
+                byte c = buf.get(i);
+                scratch[k++] = c;
+                if (c == '"' && i + 1 < to && buf.get(i + 1) == '"') i++;
+            }
+            return new String(scratch, 0, k, StandardCharsets.UTF_8);
+        }
+    }
+}
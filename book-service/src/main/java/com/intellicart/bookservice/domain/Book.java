@@ -1,14 +1,24 @@
 package com.intellicart.bookservice.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "books")
+@Table(name = "books", indexes = {
+        @Index(name = "idx_books_source_key", columnList = "source_key"),
+        @Index(name = "idx_books_title_key", columnList = "title_key"),
+        @Index(name = "idx_books_author_key", columnList = "author_key")
+})
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Book {
+    public static final String ID_SEQUENCE = "books_seq";
+    public static final int ID_ALLOCATION = 500;
+
+    // pooled sequence so Hibernate can hand out ids without a round-trip per row and batch the INSERTs
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION)
     private Long id;
 
     @Column(nullable = false)
@@ -24,4 +34,30 @@ public class Book {
     private Double price;
 
     private Double averageRating;  // added for Goodreads import
+
+    // natural key from the import feed (Goodreads bookID, else ISBN), matched by delta imports
+    @JsonIgnore
+    @Column(name = "source_key")
+    private String sourceKey;
+
+    // hash of the imported columns; a delta import only rewrites the row when it changes
+    @JsonIgnore
+    @Column(name = "content_hash")
+    private Long contentHash;
+
+    // SearchText.fold of title and author, so case/accent-insensitive lookups are index seeks
+    @JsonIgnore
+    @Column(name = "title_key")
+    private String titleKey;
+
+    @JsonIgnore
+    @Column(name = "author_key")
+    private String authorKey;
+
+    @PrePersist
+    @PreUpdate
+    void foldSearchKeys() {
+        titleKey = SearchText.fold(title);
+        authorKey = SearchText.fold(author);
+    }
 }
@@ -0,0 +1,146 @@
+package com.intellicart.bookservice.domain;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Sparse update of a book, read straight from JSON without an intermediate map. {@code set}
+ * has a bit per field present in the request, so "absent" and "null" stay distinct.
+ * Prices and ratings are kept unboxed, with NaN standing for an explicit null. {@code id}
+ * is only used by bulk requests, where it picks the book to patch.
+ */
+@JsonDeserialize(using = BookPatch.Reader.class)
+public record BookPatch(int set, Long id, String title, String author, String description, String genre,
+                        double price, double averageRating) {
+
+    public static final int TITLE = 1;
+    public static final int AUTHOR = 1 << 1;
+    public static final int DESCRIPTION = 1 << 2;
+    public static final int GENRE = 1 << 3;
+    public static final int PRICE = 1 << 4;
+    public static final int AVERAGE_RATING = 1 << 5;
+
+    public boolean has(int field) {
+        return (set & field) != 0;
+    }
+
+    public boolean isEmpty() {
+        return set == 0;
+    }
+
+    /** Why the patch cannot be applied, or null: the title column is mandatory. */
+    public String problem() {
+        return has(TITLE) && (title == null || title.isBlank()) ? "title must not be blank" : null;
+    }
+
+    /** Copies the present fields onto {@code b} and returns it. */
+    public Book applyTo(Book b) {
+        if (has(TITLE)) b.setTitle(title);
+        if (has(AUTHOR)) b.setAuthor(author);
+        if (has(DESCRIPTION)) b.setDescription(description);
+        if (has(GENRE)) b.setGenre(genre);
+        if (has(PRICE)) b.setPrice(boxed(price));
+        if (has(AVERAGE_RATING)) b.setAverageRating(boxed(averageRating));
+        return b;
+    }
+
+    /** The present fields whose value differs from {@code before}, by JSON name. */
+    public Map<String, Object> changes(Book before) {
+        Map<String, Object> out = new LinkedHashMap<>();
+        if (has(TITLE) && !Objects.equals(title, before.getTitle())) out.put("title", title);
+        if (has(AUTHOR) && !Objects.equals(author, before.getAuthor())) out.put("author", author);
+        if (has(DESCRIPTION) && !Objects.equals(description, before.getDescription())) out.put("description", description);
+        if (has(GENRE) && !Objects.equals(genre, before.getGenre())) out.put("genre", genre);
+        if (has(PRICE) && !Objects.equals(boxed(price), before.getPrice())) out.put("price", boxed(price));
+        if (has(AVERAGE_RATING) && !Objects.equals(boxed(averageRating), before.getAverageRating())) {
+            out.put("averageRating", boxed(averageRating));
+        }
+        return out;
+    }
+
+    private static Double boxed(double v) {
+        return Double.isNaN(v) ? null : v;
+    }
+
+    /** Streams the object's fields; unknown ones are skipped, mistyped ones rejected. */
+    static final class Reader extends StdDeserializer<BookPatch> {
+
+        Reader() {
+            super(BookPatch.class);
+        }
+
+        @Override
+        public BookPatch deserialize(JsonParser p, DeserializationContext ctx) throws IOException {
+            int set = 0;
+            Long id = null;
+            String title = null, author = null, description = null, genre = null;
+            double price = Double.NaN, averageRating = Double.NaN;
+
+            JsonToken t = p.currentToken();
+            if (t == JsonToken.START_OBJECT) t = p.nextToken();
+            for (; t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                String name = p.currentName();
+                JsonToken v = p.nextToken();
+                switch (name) {
+                    case "id" -> id = integer(p, v, ctx, name);
+                    case "title" -> { title = text(p, v, ctx, name); set |= TITLE; }
+                    case "author" -> { author = text(p, v, ctx, name); set |= AUTHOR; }
+                    case "description" -> { description = text(p, v, ctx, name); set |= DESCRIPTION; }
+                    case "genre" -> { genre = text(p, v, ctx, name); set |= GENRE; }
+                    case "price" -> { price = number(p, v, ctx, name); set |= PRICE; }
+                    case "averageRating" -> { averageRating = number(p, v, ctx, name); set |= AVERAGE_RATING; }
+                    default -> p.skipChildren();
+                }
+            }
+            if (t != JsonToken.END_OBJECT) {
+                return (BookPatch) ctx.handleUnexpectedToken(BookPatch.class, p);
+            }
+            return new BookPatch(set, id, title, author, description, genre, price, averageRating);
+        }
+
+        private static String text(JsonParser p, JsonToken v, DeserializationContext ctx, String field) throws IOException {
+            if (v == JsonToken.VALUE_NULL) return null;
+            if (v.isScalarValue()) return p.getText();
+            ctx.reportInputMismatch(BookPatch.class, "'%s' must be a string", field);
+            return null;
+        }
+
+        private static Long integer(JsonParser p, JsonToken v, DeserializationContext ctx, String field) throws IOException {
+            if (v == JsonToken.VALUE_NULL) return null;
+            if (v == JsonToken.VALUE_NUMBER_INT) return p.getLongValue();
+            if (v == JsonToken.VALUE_STRING) {
+                try {
+                    return Long.parseLong(p.getText().trim());
+                } catch (NumberFormatException e) {
+                    // fall through to the mismatch below
+                }
+            }
+            ctx.reportInputMismatch(BookPatch.class, "'%s' must be an integer", field);
+            return null;
+        }
+
+        private static double number(JsonParser p, JsonToken v, DeserializationContext ctx, String field) throws IOException {
+            if (v == JsonToken.VALUE_NULL) return Double.NaN;
+            if (v.isNumeric()) return p.getDoubleValue();
+            if (v == JsonToken.VALUE_STRING) {
+                String s = p.getText().trim();
+                if (s.isEmpty()) return Double.NaN;
+                try {
+                    return Double.parseDouble(s);
+                } catch (NumberFormatException e) {
+                    // fall through to the mismatch below
+                }
+            }
+            ctx.reportInputMismatch(BookPatch.class, "'%s' must be a number", field);
+            return Double.NaN;
+        }
+    }
+}
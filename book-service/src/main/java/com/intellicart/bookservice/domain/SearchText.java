@@ -0,0 +1,49 @@
+package com.intellicart.bookservice.domain;
+
+import java.text.Normalizer;
+
+/**
+ * The one text normalization behind every title/author lookup: accents folded (é to e),
+ * lower-cased and whitespace runs collapsed to single spaces, trimmed. Stored in the
+ * title_key/author_key columns and applied to query strings, so comparisons need no
+ * per-row function and can use the indexes. Plain ASCII input skips the Unicode pass.
+ */
+public final class SearchText {
+
+    private SearchText() {
+    }
+
+    public static String fold(String s) {
+        if (s == null) return null;
+        String t = isAscii(s) ? s : Normalizer.normalize(s, Normalizer.Form.NFD);
+        StringBuilder sb = new StringBuilder(t.length());
+        boolean gap = false;
+        for (int i = 0; i < t.length(); i++) {
+            char c = t.charAt(i);
+            if (Character.isWhitespace(c) || Character.isSpaceChar(c)) {
+                gap = sb.length() > 0;
+                continue;
+            }
+            if (isMark(c)) continue;
+            if (gap) {
+                sb.append(' ');
+                gap = false;
+            }
+            sb.append(Character.toLowerCase(c));
+        }
+        return sb.toString();
+    }
+
+    private static boolean isAscii(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return false;
+        }
+        return true;
+    }
+
+    private static boolean isMark(char c) {
+        int type = Character.getType(c);
+        return type == Character.NON_SPACING_MARK || type == Character.COMBINING_SPACING_MARK
+                || type == Character.ENCLOSING_MARK;
+    }
+}
@@ -0,0 +1,249 @@
+package com.intellicart.bookservice.infrastructure;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.BookPatch;
+import com.intellicart.bookservice.domain.SearchText;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Writes books in chunks: one transaction per chunk, statements grouped into JDBC batches
+ * and, for inserts, the persistence context cleared afterwards so it never grows beyond a
+ * single chunk. Updates and deletes bypass the persistence context entirely.
+ */
+@Component
+public class BookBatchWriter {
+
+    private static final String PATCH_COLUMNS = "id, title, author, description, genre, price, average_rating";
+
+    private static final RowMapper<Book> ROW = (rs, n) -> Book.builder()
+            .id(rs.getLong(1))
+            .title(rs.getString(2))
+            .author(rs.getString(3))
+            .description(rs.getString(4))
+            .genre(rs.getString(5))
+            .price(getDouble(rs, 6))
+            .averageRating(getDouble(rs, 7))
+            .build();
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final JdbcTemplate jdbc;
+
+    public BookBatchWriter(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @Transactional
+    public void insert(List<Book> batch) {
+        for (Book b : batch) {
+            em.persist(b);
+        }
+        em.flush();
+        em.clear();
+    }
+
+    /** Rewrites the imported columns of existing rows; price is owned elsewhere and left alone. */
+    @Transactional
+    public void update(List<Book> batch) {
+        jdbc.batchUpdate("UPDATE books SET title = ?, author = ?, genre = ?, average_rating = ?, "
+                        + "description = ?, source_key = ?, content_hash = ?, title_key = ?, author_key = ? "
+                        + "WHERE id = ?",
+                batch, batch.size(), (ps, b) -> {
+                    ps.setString(1, b.getTitle());
+                    ps.setString(2, b.getAuthor());
+                    ps.setString(3, b.getGenre());
+                    setDouble(ps, 4, b.getAverageRating());
+                    ps.setString(5, b.getDescription());
+                    ps.setString(6, b.getSourceKey());
+                    ps.setLong(7, b.getContentHash());
+                    ps.setString(8, SearchText.fold(b.getTitle()));
+                    ps.setString(9, SearchText.fold(b.getAuthor()));
+                    ps.setLong(10, b.getId());
+                });
+    }
+
+    /** Inserts rows that already carry their ids (snapshot restore); the id sequence is not consulted. */
+    @Transactional
+    public void insertWithIds(List<Book> batch) {
+        jdbc.batchUpdate("INSERT INTO books (id, title, author, description, genre, price, average_rating, "
+                        + "source_key, content_hash, title_key, author_key) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                batch, batch.size(), (ps, b) -> {
+                    ps.setLong(1, b.getId());
+                    ps.setString(2, b.getTitle());
+                    ps.setString(3, b.getAuthor());
+                    ps.setString(4, b.getDescription());
+                    ps.setString(5, b.getGenre());
+                    setDouble(ps, 6, b.getPrice());
+                    setDouble(ps, 7, b.getAverageRating());
+                    ps.setString(8, b.getSourceKey());
+                    if (b.getContentHash() == null) {
+                        ps.setNull(9, Types.BIGINT);
+                    } else {
+                        ps.setLong(9, b.getContentHash());
+                    }
+                    ps.setString(10, SearchText.fold(b.getTitle()));
+                    ps.setString(11, SearchText.fold(b.getAuthor()));
+                });
+    }
+
+    /**
+     * Sets the price of the first {@code n} ids in one JDBC batch, NaN clearing it; price is
+     * the only column touched. Returns how many of the ids matched a row.
+     */
+    @Transactional
+    public int updatePrices(long[] ids, double[] prices, int n) {
+        int[] counts = jdbc.batchUpdate("UPDATE books SET price = ? WHERE id = ?", new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                setDouble(ps, 1, prices[i]);
+                ps.setLong(2, ids[i]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return n;
+            }
+        });
+        int matched = 0;
+        for (int c : counts) {
+            if (c > 0 || c == Statement.SUCCESS_NO_INFO) matched++;
+        }
+        return matched;
+    }
+
+    /**
+     * Moves the id sequence past {@code maxId} after rows were inserted with explicit ids.
+     * The pooled optimizer treats a fetched value as the top of its block, hence the extra
+     * allocation step.
+     */
+    public void restartIdSequence(long maxId) {
+        jdbc.execute("ALTER SEQUENCE " + Book.ID_SEQUENCE + " RESTART WITH " + (maxId + Book.ID_ALLOCATION + 1));
+    }
+
+    /**
+     * Applies {@code patch} to one row with an UPDATE of just the present columns, after
+     * reading and locking the row as it was before in the same transaction. Nothing is
+     * loaded into the persistence context. Returns the row as it was, or empty when there
+     * is no such row.
+     */
+    @Transactional
+    public Optional<Book> patch(long id, BookPatch patch) {
+        List<Book> before = jdbc.query("SELECT " + PATCH_COLUMNS + " FROM books WHERE id = ? FOR UPDATE", ROW, id);
+        if (before.isEmpty()) return Optional.empty();
+        jdbc.update("UPDATE books SET " + assignments(patch.set()) + " WHERE id = ?",
+                ps -> ps.setLong(bind(ps, patch), id));
+        return Optional.of(before.get(0));
+    }
+
+    /**
+     * Applies patches that carry their ids in JDBC batches. Each run of consecutive patches
+     * touching the same columns shares one statement, so order is kept when a book is
+     * patched more than once.
+     */
+    @Transactional
+    public void patchAll(List<BookPatch> patches) {
+        int from = 0;
+        while (from < patches.size()) {
+            int set = patches.get(from).set();
+            int to = from + 1;
+            while (to < patches.size() && patches.get(to).set() == set) to++;
+            List<BookPatch> run = patches.subList(from, to);
+            jdbc.batchUpdate("UPDATE books SET " + assignments(set) + " WHERE id = ?",
+                    run, run.size(), (ps, p) -> ps.setLong(bind(ps, p), p.id()));
+            from = to;
+        }
+    }
+
+    /** Current rows for {@code ids} as plain, unmanaged books (import bookkeeping columns left out). */
+    public List<Book> load(Collection<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        String marks = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbc.query("SELECT " + PATCH_COLUMNS + " FROM books WHERE id IN (" + marks + ")", ROW, ids.toArray());
+    }
+
+    /** Book id per import natural key ({@code source_key}) for the given keys; unknown keys are left out. */
+    public Map<String, Long> idsBySourceKey(Collection<String> keys) {
+        if (keys.isEmpty()) return Map.of();
+        String marks = String.join(", ", Collections.nCopies(keys.size(), "?"));
+        Map<String, Long> out = new HashMap<>();
+        jdbc.query("SELECT source_key, id FROM books WHERE source_key IN (" + marks + ")",
+                rs -> { out.put(rs.getString(1), rs.getLong(2)); }, keys.toArray());
+        return out;
+    }
+
+    @Transactional
+    public void delete(List<Long> ids) {
+        jdbc.batchUpdate("DELETE FROM books WHERE id = ?", ids, ids.size(), (ps, id) -> ps.setLong(1, id));
+    }
+
+    /** "col = ?" for each field present in {@code set}, in {@link #bind} order; title and author carry their keys. */
+    private static String assignments(int set) {
+        StringBuilder sql = new StringBuilder();
+        if ((set & BookPatch.TITLE) != 0) sql.append("title = ?, title_key = ?, ");
+        if ((set & BookPatch.AUTHOR) != 0) sql.append("author = ?, author_key = ?, ");
+        if ((set & BookPatch.DESCRIPTION) != 0) sql.append("description = ?, ");
+        if ((set & BookPatch.GENRE) != 0) sql.append("genre = ?, ");
+        if ((set & BookPatch.PRICE) != 0) sql.append("price = ?, ");
+        if ((set & BookPatch.AVERAGE_RATING) != 0) sql.append("average_rating = ?, ");
+        if (sql.isEmpty()) throw new IllegalArgumentException("empty patch");
+        return sql.substring(0, sql.length() - 2);
+    }
+
+    /** Binds the present fields from parameter 1 on; returns the next free index. */
+    private static int bind(PreparedStatement ps, BookPatch p) throws SQLException {
+        int i = 1;
+        if (p.has(BookPatch.TITLE)) {
+            ps.setString(i++, p.title());
+            ps.setString(i++, SearchText.fold(p.title()));
+        }
+        if (p.has(BookPatch.AUTHOR)) {
+            ps.setString(i++, p.author());
+            ps.setString(i++, SearchText.fold(p.author()));
+        }
+        if (p.has(BookPatch.DESCRIPTION)) ps.setString(i++, p.description());
+        if (p.has(BookPatch.GENRE)) ps.setString(i++, p.genre());
+        if (p.has(BookPatch.PRICE)) setDouble(ps, i++, p.price());
+        if (p.has(BookPatch.AVERAGE_RATING)) setDouble(ps, i++, p.averageRating());
+        return i;
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, double value) throws SQLException {
+        if (Double.isNaN(value)) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+
+    private static Double getDouble(ResultSet rs, int index) throws SQLException {
+        double v = rs.getDouble(index);
+        return rs.wasNull() ? null : v;
+    }
+
+    private static void setDouble(PreparedStatement ps, int index, Double value) throws SQLException {
+        if (value == null) {
+            ps.setNull(index, Types.DOUBLE);
+        } else {
+            ps.setDouble(index, value);
+        }
+    }
+}
@@ -0,0 +1,5 @@
+package com.intellicart.bookservice.infrastructure;
+
+/** Natural key and content hash of a stored book, all a delta import needs to diff against. */
+public record BookFingerprint(Long id, String sourceKey, Long contentHash) {
+}
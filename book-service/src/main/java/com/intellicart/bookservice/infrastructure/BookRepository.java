@@ -1,12 +1,46 @@
 package com.intellicart.bookservice.infrastructure;
 
 import com.intellicart.bookservice.domain.Book;
+import org.springframework.data.domain.Limit;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<Book, Long> {
-    Optional<Book> findByTitleIgnoreCase(String title);
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    /** Exact title on the folded key (see SearchText); the lowest id wins when titles repeat. */
+    Optional<Book> findFirstByTitleKeyOrderByIdAsc(String titleKey);
+
+    /** Exact titles on the folded keys, in id order so the first row per key is the one above. */
+    List<Book> findByTitleKeyInOrderByIdAsc(Collection<String> titleKeys);
+
+    /** Substring match on the folded key; still a scan, but without a per-row LOWER(). */
+    List<Book> findByTitleKeyContaining(String fragment);
+
+    /** Titles starting with the folded prefix, in title order; LIKE 'prefix%' is an index range scan. */
+    List<Book> findByTitleKeyStartingWithOrderByTitleKeyAscIdAsc(String prefix, Limit limit);
+
+    /** Keyset page: the next {@code limit} books after {@code id}, in id order. */
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /** Popularity fallback for suggestions. */
+    List<Book> findTop100ByAverageRatingNotNullOrderByAverageRatingDescIdAsc();
+
+    /** Whole catalogue as a cursor; must be consumed inside a transaction and closed. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select b from Book b order by b.id")
+    Stream<Book> streamAll();
+
+    @Query("select new com.intellicart.bookservice.infrastructure.BookFingerprint(b.id, b.sourceKey, b.contentHash) "
+            + "from Book b where b.sourceKey is not null")
+    List<BookFingerprint> findAllFingerprints();
 }
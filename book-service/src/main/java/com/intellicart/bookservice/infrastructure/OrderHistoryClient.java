@@ -0,0 +1,69 @@
+package com.intellicart.bookservice.infrastructure;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/** Reads purchase history from order-service. */
+@Component
+public class OrderHistoryClient {
+
+    record OrderItemDto(Long bookId, int quantity) {}
+
+    record OrderDto(Long id, Long userId, List<OrderItemDto> items) {}
+
+    private final RestTemplate rest;
+    private final String ordersUrl;
+    private final ObjectReader orderReader;
+
+    public OrderHistoryClient(RestTemplateBuilder builder, ObjectMapper mapper,
+                              @Value("${app.orders.url:http://localhost:8082}") String ordersUrl) {
+        this.rest = builder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(30))
+                .build();
+        this.ordersUrl = ordersUrl;
+        this.orderReader = mapper.readerFor(OrderDto.class);
+    }
+
+    /**
+     * Distinct book ids each user has ordered, keyed by user id. Reads order-service's NDJSON
+     * export one order at a time, so only the result map is held in memory.
+     */
+    public Map<Long, Set<Long>> booksByUser() {
+        Map<Long, Set<Long>> byUser = new HashMap<>();
+        rest.execute(ordersUrl + "/api/orders", HttpMethod.GET,
+                req -> req.getHeaders().setAccept(List.of(MediaType.APPLICATION_NDJSON)),
+                resp -> {
+                    BufferedReader in = new BufferedReader(new InputStreamReader(resp.getBody(), StandardCharsets.UTF_8));
+                    for (String line = in.readLine(); line != null; line = in.readLine()) {
+                        if (!line.isBlank()) add(byUser, orderReader.readValue(line));
+                    }
+                    return null;
+                });
+        return byUser;
+    }
+
+    private static void add(Map<Long, Set<Long>> byUser, OrderDto o) {
+        if (o.userId() == null || o.items() == null) return;
+        Set<Long> books = byUser.computeIfAbsent(o.userId(), u -> new LinkedHashSet<>());
+        for (OrderItemDto item : o.items()) {
+            if (item.bookId() != null) books.add(item.bookId());
+        }
+    }
+}
@@ -1,41 +1,290 @@
 package com.intellicart.bookservice.presentation;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.BookPatch;
+import com.intellicart.bookservice.service.BookChanges;
+import com.intellicart.bookservice.service.BookFilter;
+import com.intellicart.bookservice.service.BookQueryResult;
+import com.intellicart.bookservice.service.BookSearchIndex;
 import com.intellicart.bookservice.service.BookService;
+import com.intellicart.bookservice.service.BulkRow;
+import com.intellicart.bookservice.service.BulkRowResult;
+import com.intellicart.bookservice.service.BulkSummary;
+import com.intellicart.bookservice.service.PriceFeedResult;
+import com.intellicart.bookservice.service.PriceFeedService;
+import com.intellicart.bookservice.service.RecommendationService;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/books")
 public class BookController {
 
+    private static final int MAX_PAGE = 1000;
+    private static final int MAX_SEARCH_RESULTS = 200;
+    private static final int MAX_BATCH = 500;
+    private static final int MAX_CHANGES_WAIT_SECONDS = 30;
+    private static final int BULK_CHUNK = 500;
+    private static final int MAX_PRICE_LOOKUP = 5000;
+
+    /** Response header carrying the keyset cursor for the next page; absent on the last page. */
+    static final String NEXT_AFTER = "X-Next-After";
+
     private final BookService svc;
+    private final RecommendationService recommendations;
+    private final PriceFeedService priceFeed;
+    private final ObjectWriter bookWriter;
+    private final ObjectReader rowReader;
 
-    public BookController(BookService svc) {
+    public BookController(BookService svc, RecommendationService recommendations, PriceFeedService priceFeed,
+                          ObjectMapper mapper) {
         this.svc = svc;
+        this.recommendations = recommendations;
+        this.priceFeed = priceFeed;
+        this.bookWriter = mapper.writerFor(Book.class);
+        this.rowReader = mapper.readerFor(BookPatch.class);
     }
 
+    /**
+     * One keyset page of the catalogue: {@code ?after=<last id seen>&limit=}, optionally
+     * narrowed by genre, lang, minRating/maxRating and minPrice/maxPrice. With
+     * {@code ?ids=1,2,3} it is a multi-get instead, like {@code POST /batch}.
+     *
+     * <p>The book GETs tag their reply with a {@link BookETags} hash of the rows it holds;
+     * Spring answers a matching If-None-Match with 304 and skips writing the body.
+     */
     @GetMapping
-    public List<Book> all() {
-        return svc.all();
+    public ResponseEntity<List<Book>> all(@RequestParam(name = "ids", required = false) List<Long> ids,
+                                          @RequestParam(name = "after", required = false) Long after,
+                                          @RequestParam(name = "limit", defaultValue = "100") int limit,
+                                          @RequestParam(name = "genre", required = false) String genre,
+                                          @RequestParam(name = "lang", required = false) String lang,
+                                          @RequestParam(name = "minRating", required = false) Double minRating,
+                                          @RequestParam(name = "maxRating", required = false) Double maxRating,
+                                          @RequestParam(name = "minPrice", required = false) Double minPrice,
+                                          @RequestParam(name = "maxPrice", required = false) Double maxPrice) {
+        if (ids != null) {
+            List<Book> books = batch(ids);
+            return ResponseEntity.ok().eTag(BookETags.of(books)).body(books);
+        }
+        int size = Math.max(1, Math.min(limit, MAX_PAGE));
+        BookFilter filter = new BookFilter(genre, lang, minRating, maxRating, minPrice, maxPrice);
+        List<Book> page;
+        Long next = null;
+        if (!filter.isEmpty()) {
+            BookQueryResult result = query(filter, after, size);
+            page = result.items();
+            next = result.nextAfter();
+        } else {
+            page = svc.page(after, size);
+            if (page.size() == size) next = page.get(page.size() - 1).getId();
+        }
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok().eTag(BookETags.of(page));
+        if (next != null) ok.header(NEXT_AFTER, String.valueOf(next));
+        return ok.body(page);
+    }
+
+    /** Books for up to 500 ids in one round-trip, in request order; unknown ids are left out. */
+    @PostMapping("/batch")
+    public List<Book> batch(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + MAX_BATCH + " ids per request");
+        }
+        List<Long> wanted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) wanted.add(id);
+        }
+        return svc.getAll(wanted);
+    }
+
+    /** Compact id to price map for up to 5000 ids; books without a price are left out. */
+    @GetMapping("/prices")
+    public ResponseEntity<Map<Long, Double>> prices(@RequestParam(name = "ids") List<Long> ids) {
+        Map<Long, Double> prices = priceLookup(ids);
+        return ResponseEntity.ok().eTag(BookETags.ofPrices(prices)).body(prices);
+    }
+
+    /** Same as {@code GET /prices} with the ids as a JSON array, for lists too long for a URL. */
+    @PostMapping("/prices/lookup")
+    public Map<Long, Double> priceLookup(@RequestBody List<Long> ids) {
+        if (ids.size() > MAX_PRICE_LOOKUP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "at most " + MAX_PRICE_LOOKUP + " ids per request");
+        }
+        List<Long> wanted = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            if (id != null) wanted.add(id);
+        }
+        return svc.prices(wanted);
+    }
+
+    /**
+     * Price feed upload, streamed: CSV with a header (text/csv) or NDJSON, each row keyed by
+     * id, bookID or isbn. Blank prices clear a book's price.
+     */
+    @PostMapping(path = "/prices", consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE})
+    public PriceFeedResult ingestPrices(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                        InputStream body) throws IOException {
+        boolean ndjson = MediaType.APPLICATION_NDJSON.isCompatibleWith(MediaType.parseMediaType(contentType));
+        try {
+            return priceFeed.ingest(body, ndjson ? PriceFeedService.Format.NDJSON : PriceFeedService.Format.CSV);
+        } catch (IllegalArgumentException | JsonProcessingException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+    }
+
+    /** Filtered page plus total and per-facet counts (genre, lang, rating, price). */
+    @GetMapping("/query")
+    public ResponseEntity<BookQueryResult> facets(@RequestParam(name = "after", required = false) Long after,
+                                                  @RequestParam(name = "limit", defaultValue = "20") int limit,
+                                                  @RequestParam(name = "genre", required = false) String genre,
+                                                  @RequestParam(name = "lang", required = false) String lang,
+                                                  @RequestParam(name = "minRating", required = false) Double minRating,
+                                                  @RequestParam(name = "maxRating", required = false) Double maxRating,
+                                                  @RequestParam(name = "minPrice", required = false) Double minPrice,
+                                                  @RequestParam(name = "maxPrice", required = false) Double maxPrice) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE));
+        BookFilter filter = new BookFilter(genre, lang, minRating, maxRating, minPrice, maxPrice);
+        BookQueryResult result = query(filter, after, size);
+        return ResponseEntity.ok().eTag(BookETags.of(result)).body(result);
+    }
+
+    private BookQueryResult query(BookFilter filter, Long after, int size) {
+        return svc.query(filter, after, size)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                        "catalogue index is still being built"));
+    }
+
+    /**
+     * Whole catalogue as newline-delimited JSON, streamed straight from a database cursor.
+     * Untagged: a tag would have to cover rows not yet read. Follow {@code /changes} instead.
+     */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = out -> svc.streamAll(b -> {
+            try {
+                out.write(bookWriter.writeValueAsBytes(b));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<Book> get(@PathVariable Long id) {
-        return svc.get(id).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return svc.get(id).map(b -> ResponseEntity.ok().eTag(BookETags.of(b)).body(b))
+                .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @GetMapping("/title/{title}")
     public ResponseEntity<Book> getByExactTitle(@PathVariable String title) {
-        return svc.getByExactTitle(title).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+        return svc.getByExactTitle(title).map(b -> ResponseEntity.ok().eTag(BookETags.of(b)).body(b))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Change feed: committed changes after sequence {@code since}, oldest first. With
+     * {@code wait=<seconds>} (up to 30) an up-to-date caller is held until something changes
+     * or the wait runs out, which then returns an empty batch.
+     */
+    @GetMapping("/changes")
+    public DeferredResult<BookChanges> changes(@RequestParam(name = "since") long since,
+                                               @RequestParam(name = "limit", defaultValue = "500") int limit,
+                                               @RequestParam(name = "wait", defaultValue = "0") int wait) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE));
+        long waitMs = TimeUnit.SECONDS.toMillis(Math.max(0, Math.min(wait, MAX_CHANGES_WAIT_SECONDS)));
+        if (waitMs == 0) {
+            DeferredResult<BookChanges> now = new DeferredResult<>();
+            now.setResult(svc.changes(since, size));
+            return now;
+        }
+        DeferredResult<BookChanges> result = new DeferredResult<>(waitMs, () -> svc.changes(since, size));
+        CompletableFuture<BookChanges> next = svc.awaitChanges(since, size);
+        next.thenAccept(result::setResult);
+        result.onCompletion(() -> next.cancel(false));
+        return result;
+    }
+
+    /**
+     * Current sequence of the change feed, for a consumer about to read the whole catalogue:
+     * reading {@code /changes} from here afterwards replays every write made meanwhile.
+     */
+    @GetMapping("/changes/head")
+    public Map<String, Long> changesHead() {
+        return Map.of("head", svc.changesHead());
+    }
+
+    /** Suggested titles for {@code userId} (or the top-rated books without one), at most 10. */
+    @GetMapping("/suggestions")
+    public List<String> suggestions(@RequestParam(name = "userId", required = false) Long userId,
+                                    @RequestParam(name = "limit", defaultValue = "5") int limit) {
+        return recommendations.suggestionsFor(userId, Math.max(1, limit));
+    }
+
+    /** Books whose title starts with {@code prefix}, case and accents ignored, in title order. */
+    @GetMapping("/titles")
+    public ResponseEntity<List<Book>> titlesStartingWith(@RequestParam(name = "prefix") String prefix,
+                                                         @RequestParam(name = "limit", defaultValue = "20") int limit) {
+        int k = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        List<Book> books = svc.titlesStartingWith(prefix, k);
+        return ResponseEntity.ok().eTag(BookETags.of(books)).body(books);
+    }
+
+    /** Exact-title lookup for up to 500 titles in one round-trip, keyed by the title as sent. */
+    @PostMapping("/titles/lookup")
+    public Map<String, Book> titleLookup(@RequestBody List<String> titles) {
+        if (titles.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "at most " + MAX_BATCH + " titles per request");
+        }
+        List<String> wanted = new ArrayList<>(titles.size());
+        for (String t : titles) {
+            if (t != null) wanted.add(t);
+        }
+        return svc.getByExactTitles(wanted);
     }
 
+    /** Top {@code limit} matches, ranked by {@code sort} (relevance | averageRating). */
     @GetMapping("/search")
-    public List<Book> search(@RequestParam(name = "q") String q) {
-        return svc.searchByTitle(q);
+    public List<Book> search(@RequestParam(name = "q") String q,
+                             @RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy,
+                             @RequestParam(name = "limit", defaultValue = "20") int limit,
+                             @RequestParam(name = "sort", defaultValue = "relevance") String sort) {
+        BookSearchIndex.Sort order;
+        try {
+            order = BookSearchIndex.Sort.parse(sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        int k = Math.max(1, Math.min(limit, MAX_SEARCH_RESULTS));
+        return fuzzy ? svc.fuzzySearch(q, k, order) : svc.searchByTitle(q, k, order);
     }
 
     @PostMapping
@@ -43,9 +292,77 @@ public class BookController {
         return svc.create(book);
     }
 
+    /**
+     * Bulk create/patch: one JSON object per line, with an "id" to patch that book or
+     * without one to create a book. Lines are applied in transactions of 500 with batched
+     * statements; the reply has a result for every line.
+     */
+    @PostMapping(path = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public BulkSummary bulk(InputStream body) throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        List<BulkRowResult> results = new ArrayList<>();
+        List<BulkRow> chunk = new ArrayList<>(BULK_CHUNK);
+        int lineNo = 0;
+        for (String line = in.readLine(); line != null; line = in.readLine()) {
+            lineNo++;
+            if (line.isBlank()) continue;
+            BookPatch patch;
+            try {
+                patch = rowReader.readValue(line);
+            } catch (JsonProcessingException e) {
+                results.add(BulkRowResult.rejected(lineNo, BulkRowResult.Status.INVALID, null,
+                        "malformed JSON: " + e.getOriginalMessage()));
+                continue;
+            }
+            chunk.add(new BulkRow(lineNo, patch));
+            if (chunk.size() == BULK_CHUNK) {
+                results.addAll(applyChunk(chunk));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) results.addAll(applyChunk(chunk));
+        results.sort(Comparator.comparingInt(BulkRowResult::line));
+        return BulkSummary.of(results);
+    }
+
+    /** A chunk the database rejects is retried row by row, so one bad row fails alone. */
+    private List<BulkRowResult> applyChunk(List<BulkRow> chunk) {
+        try {
+            return svc.applyBulk(chunk);
+        } catch (RuntimeException chunkFailure) {
+            List<BulkRowResult> out = new ArrayList<>(chunk.size());
+            for (BulkRow row : chunk) {
+                try {
+                    out.addAll(svc.applyBulk(List.of(row)));
+                } catch (RuntimeException e) {
+                    out.add(BulkRowResult.rejected(row.line(), BulkRowResult.Status.FAILED, null,
+                            NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+                }
+            }
+            return out;
+        }
+    }
+
+    /** Sparse update: only the fields present in the body are written; replies with the updated book. */
     @PutMapping("/{id}")
-    public ResponseEntity<Book> update(@PathVariable Long id, @RequestBody Map<String, Object> patch) {
-        return svc.updatePartial(id, patch).map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
+    public ResponseEntity<Book> update(@PathVariable Long id, @RequestBody BookPatch patch) {
+        return sparse(() -> svc.patch(id, patch));
+    }
+
+    /** Sparse update whose reply holds the id and only the fields whose value changed. */
+    @PatchMapping("/{id}")
+    public ResponseEntity<Map<String, Object>> patch(@PathVariable Long id, @RequestBody BookPatch patch) {
+        return sparse(() -> svc.patchChanges(id, patch));
+    }
+
+    private static <T> ResponseEntity<T> sparse(Supplier<Optional<T>> update) {
+        Optional<T> result;
+        try {
+            result = update.get();
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
+        return result.map(ResponseEntity::ok).orElseGet(() -> ResponseEntity.notFound().build());
     }
 
     @DeleteMapping("/{id}")
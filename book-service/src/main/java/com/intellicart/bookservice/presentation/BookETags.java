@@ -0,0 +1,93 @@
+package com.intellicart.bookservice.presentation;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.service.BookQueryResult;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Strong ETags computed from exactly what a response returns: a 64-bit FNV-1a hash over the
+ * visible fields of its books. A tag only changes when one of those rows does, is computed
+ * from the same rows as the body so the two always agree, and is the same on every replica.
+ */
+final class BookETags {
+
+    private static final long OFFSET = 0xcbf29ce484222325L;
+    private static final long PRIME = 0x100000001b3L;
+
+    private long hash = OFFSET;
+
+    private BookETags() {
+    }
+
+    static String of(Book book) {
+        return new BookETags().add(book).tag();
+    }
+
+    static String of(List<Book> books) {
+        BookETags h = new BookETags().add(books.size());
+        for (Book b : books) h.add(b);
+        return h.tag();
+    }
+
+    static String of(BookQueryResult result) {
+        BookETags h = new BookETags().add(result.items().size());
+        for (Book b : result.items()) h.add(b);
+        h.add(result.total()).add(result.nextAfter());
+        // in map order, which is also the order they are written in
+        for (Map.Entry<String, Map<String, Integer>> facet : result.facets().entrySet()) {
+            h.add(facet.getKey()).add(facet.getValue().size());
+            for (Map.Entry<String, Integer> count : facet.getValue().entrySet()) {
+                h.add(count.getKey()).add(count.getValue());
+            }
+        }
+        return h.tag();
+    }
+
+    static String ofPrices(Map<Long, Double> prices) {
+        BookETags h = new BookETags().add(prices.size());
+        for (Map.Entry<Long, Double> e : prices.entrySet()) {
+            h.add(e.getKey()).add(e.getValue());
+        }
+        return h.tag();
+    }
+
+    private BookETags add(Book b) {
+        return add(b.getId()).add(b.getTitle()).add(b.getAuthor()).add(b.getDescription())
+                .add(b.getGenre()).add(b.getPrice()).add(b.getAverageRating());
+    }
+
+    private BookETags add(String s) {
+        if (s == null) return mix(-1L);
+        mix(s.length());
+        for (int i = 0; i < s.length(); i++) {
+            hash = (hash ^ s.charAt(i)) * PRIME;
+        }
+        return this;
+    }
+
+    private BookETags add(Long v) {
+        return v == null ? mix(-1L).mix(0) : mix(v).mix(1);
+    }
+
+    private BookETags add(Double v) {
+        return v == null ? mix(-1L).mix(0) : mix(Double.doubleToLongBits(v)).mix(1);
+    }
+
+    private BookETags add(Integer v) {
+        return v == null ? mix(-1L).mix(0) : mix(v).mix(1);
+    }
+
+    private BookETags mix(long v) {
+        for (int i = 0; i < 8; i++) {
+            hash = (hash ^ (v & 0xff)) * PRIME;
+            v >>>= 8;
+        }
+        return this;
+    }
+
+    private String tag() {
+        return "\"" + Long.toHexString(hash) + "\"";
+    }
+}
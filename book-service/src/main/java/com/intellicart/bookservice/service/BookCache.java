@@ -0,0 +1,283 @@
+package com.intellicart.bookservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.SearchText;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Bounded read-through caches in front of the book lookups: books by id, exact-title to id,
+ * and search results (as id lists) keyed by the normalized query. Entries expire after a
+ * TTL and the least valuable ones are dropped past the size bound; single-book writes evict
+ * precisely via {@link #evict}, multi-row writes drop all search results at once. Hit/miss
+ * counts are published as {@code cache.*} meters.
+ */
+@Component
+public class BookCache {
+
+    /** Search results depend only on the distinct query tokens, so "Potter harry" = "harry POTTER". */
+    record SearchKey(String terms, boolean fuzzy, int limit, BookSearchIndex.Sort sort) {
+        static SearchKey of(String q, boolean fuzzy, int limit, BookSearchIndex.Sort sort) {
+            return new SearchKey(String.join(" ", new TreeSet<>(BookSearchIndex.tokens(q))), fuzzy, limit, sort);
+        }
+    }
+
+    private final Cache<Long, Book> books;
+    private final Cache<String, Optional<Long>> titles;
+    private final Cache<SearchKey, List<Long>> searches;
+
+    // Cached search keys by what a book must contain to be a candidate: the leading term of a
+    // plain query (every term must prefix a word), each trigram of a fuzzy one. A key is added
+    // and removed only while its cache entry is locked, so no cached key is ever missing.
+    private final Map<String, Set<SearchKey>> byLeadingTerm = new ConcurrentHashMap<>();
+    private final Map<Long, Set<SearchKey>> byTrigram = new ConcurrentHashMap<>();
+    private final Set<SearchKey> indexed = ConcurrentHashMap.newKeySet();
+
+    // Bumped before every book invalidation. Rows loaded outside the cache's own compute are
+    // only put if it has not moved since the load began, so a read that raced a write can
+    // never re-cache the old row after the write's evict.
+    private final AtomicLong bookWrites = new AtomicLong();
+
+    public BookCache(MeterRegistry registry,
+                     @Value("${app.books.cache.max-size:10000}") long maxSize,
+                     @Value("${app.books.cache.ttl:10m}") Duration ttl) {
+        this.books = CaffeineCacheMetrics.monitor(registry, builder(maxSize, ttl).build(), "books.byId");
+        this.titles = CaffeineCacheMetrics.monitor(registry, builder(maxSize, ttl).build(), "books.byTitle");
+        this.searches = CaffeineCacheMetrics.monitor(registry, builder(maxSize, ttl)
+                .<SearchKey, List<Long>>evictionListener((k, v, cause) -> unindex(k))
+                .build(), "books.search");
+    }
+
+    private static Caffeine<Object, Object> builder(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats();
+    }
+
+    /** Cached book, loading and caching it on a miss; unknown ids are not cached. */
+    public Optional<Book> book(Long id, Function<Long, Optional<Book>> loader) {
+        return Optional.ofNullable(books.get(id, k -> loader.apply(k).orElse(null)));
+    }
+
+    /** Cached books for {@code ids}, in that order; misses are loaded in one call. */
+    public List<Book> books(List<Long> ids, Function<Collection<Long>, Iterable<Book>> loader) {
+        // read each id once and keep what was loaded locally: an entry may be evicted right after the put
+        Map<Long, Book> found = new HashMap<>(books.getAllPresent(ids));
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (!found.containsKey(id)) missing.add(id);
+        }
+        if (!missing.isEmpty()) {
+            long stamp = bookWrites.get();
+            for (Book b : loader.apply(missing)) {
+                cacheLoaded(b, stamp);
+                found.put(b.getId(), b);
+            }
+        }
+        List<Book> out = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Book b = found.get(id);
+            if (b != null) out.add(b);
+        }
+        return out;
+    }
+
+    /** Cached exact-title lookup; "no such title" is cached too until a write touches it. */
+    public Optional<Book> byTitle(String title, Function<String, Optional<Book>> byTitle,
+                                  Function<Long, Optional<Book>> byId) {
+        Optional<Long> id = titles.get(titleKey(title), k -> {
+            long stamp = bookWrites.get();
+            Optional<Book> found = byTitle.apply(title);
+            found.ifPresent(b -> cacheLoaded(b, stamp));
+            return found.map(Book::getId);
+        });
+        return id.flatMap(i -> book(i, byId));
+    }
+
+    public List<Long> search(String q, boolean fuzzy, int limit, BookSearchIndex.Sort sort,
+                             Supplier<List<Long>> loader) {
+        return searches.get(SearchKey.of(q, fuzzy, limit, sort), k -> {
+            List<Long> ids = List.copyOf(loader.get());
+            index(k);
+            return ids;
+        });
+    }
+
+    /**
+     * Drops everything a write to one book may have made stale. {@code before} is the book
+     * as it was (null when created), {@code after} as it is now (null when deleted). Search
+     * entries are only looked at when a ranked field changed, and only those indexed under
+     * a word of either version; they are dropped if either version would be a candidate for
+     * the query. Results only ever list candidates, so that covers the entries listing the book.
+     */
+    public void evict(Book before, Book after) {
+        Book any = after != null ? after : before;
+        if (any == null || any.getId() == null) return;
+        evictBook(before);
+        evictBook(after);
+        if (!rankingChanged(before, after)) return;
+        Set<SearchKey> candidates = new HashSet<>();
+        if (before != null) collectKeys(before, candidates);
+        if (after != null) collectKeys(after, candidates);
+        for (SearchKey k : candidates) {
+            if ((before != null && BookSearchIndex.couldMatch(k.terms(), k.fuzzy(), before))
+                    || (after != null && BookSearchIndex.couldMatch(k.terms(), k.fuzzy(), after))) {
+                searches.asMap().compute(k, (key, ids) -> {
+                    unindex(key);
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * {@link #evict} for a multi-row write, {@code before} and {@code after} keyed by book id:
+     * the books and titles are dropped one by one, search results all at once.
+     */
+    public void evictAll(Map<Long, Book> before, Map<Long, Book> after) {
+        boolean ranked = false;
+        for (Map.Entry<Long, Book> e : after.entrySet()) {
+            Book old = before.get(e.getKey());
+            evictBook(old);
+            evictBook(e.getValue());
+            ranked |= rankingChanged(old, e.getValue());
+        }
+        if (ranked) invalidateSearches();
+    }
+
+    /** Drops the cached copies of books whose price changed, and search results at once. */
+    public void evictBooks(long[] ids, int n) {
+        for (int i = 0; i < n; i++) invalidateBook(ids[i]);
+        if (n > 0) invalidateSearches();
+    }
+
+    /** Catalogue reloaded: nothing cached can be trusted. */
+    public void clear() {
+        bookWrites.incrementAndGet();
+        books.invalidateAll();
+        titles.invalidateAll();
+        invalidateSearches();
+    }
+
+    private void evictBook(Book b) {
+        if (b == null) return;
+        if (b.getId() != null) invalidateBook(b.getId());
+        if (b.getTitle() != null) titles.invalidate(titleKey(b.getTitle()));
+    }
+
+    private void invalidateBook(Long id) {
+        bookWrites.incrementAndGet();
+        books.invalidate(id);
+    }
+
+    /**
+     * Caches {@code b}, loaded after {@code stamp} was read, unless a book was invalidated
+     * since. The check runs inside the entry's compute, which an invalidation of the same
+     * id waits for, so either the put is skipped or the invalidation removes it.
+     */
+    private void cacheLoaded(Book b, long stamp) {
+        books.asMap().compute(b.getId(), (id, cached) ->
+                cached != null || bookWrites.get() != stamp ? cached : b);
+    }
+
+    private void invalidateSearches() {
+        searches.invalidateAll();
+        // unindex what is gone; a key cached again meanwhile is left indexed
+        for (SearchKey k : indexed) {
+            searches.asMap().compute(k, (key, ids) -> {
+                if (ids == null) unindex(key);
+                return ids;
+            });
+        }
+    }
+
+    /** Keys indexed under a word prefix or trigram of {@code book}'s title or author. */
+    private void collectKeys(Book book, Set<SearchKey> out) {
+        List<String> words = new ArrayList<>(BookSearchIndex.tokens(book.getTitle()));
+        words.addAll(BookSearchIndex.tokens(book.getAuthor()));
+        for (String w : words) {
+            for (int n = 1; n <= w.length(); n++) {
+                Set<SearchKey> keys = byLeadingTerm.get(w.substring(0, n));
+                if (keys != null) out.addAll(keys);
+            }
+        }
+        for (Long g : BookSearchIndex.trigrams(words)) {
+            Set<SearchKey> keys = byTrigram.get(g);
+            if (keys != null) out.addAll(keys);
+        }
+    }
+
+    // index/unindex run inside a compute on the key's cache entry
+    private void index(SearchKey k) {
+        indexed.add(k);
+        if (k.terms().isEmpty()) return;
+        if (k.fuzzy()) {
+            for (Long g : BookSearchIndex.trigrams(Arrays.asList(k.terms().split(" ")))) add(byTrigram, g, k);
+        } else {
+            add(byLeadingTerm, leadingTerm(k), k);
+        }
+    }
+
+    private void unindex(SearchKey k) {
+        if (!indexed.remove(k) || k.terms().isEmpty()) return;
+        if (k.fuzzy()) {
+            for (Long g : BookSearchIndex.trigrams(Arrays.asList(k.terms().split(" ")))) remove(byTrigram, g, k);
+        } else {
+            remove(byLeadingTerm, leadingTerm(k), k);
+        }
+    }
+
+    private static <T> void add(Map<T, Set<SearchKey>> index, T token, SearchKey k) {
+        index.compute(token, (t, keys) -> {
+            if (keys == null) keys = ConcurrentHashMap.newKeySet();
+            keys.add(k);
+            return keys;
+        });
+    }
+
+    private static <T> void remove(Map<T, Set<SearchKey>> index, T token, SearchKey k) {
+        index.computeIfPresent(token, (t, keys) -> {
+            keys.remove(k);
+            return keys.isEmpty() ? null : keys;
+        });
+    }
+
+    private static String leadingTerm(SearchKey k) {
+        int space = k.terms().indexOf(' ');
+        return space < 0 ? k.terms() : k.terms().substring(0, space);
+    }
+
+    private static boolean rankingChanged(Book before, Book after) {
+        return before == null || after == null
+                || !Objects.equals(before.getTitle(), after.getTitle())
+                || !Objects.equals(before.getAuthor(), after.getAuthor())
+                || !Objects.equals(before.getAverageRating(), after.getAverageRating());
+    }
+
+    private static String titleKey(String title) {
+        return SearchText.fold(title);
+    }
+}
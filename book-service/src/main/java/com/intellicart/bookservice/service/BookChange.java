@@ -0,0 +1,28 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+
+/**
+ * One entry of the catalogue change feed. {@code seq} is the catalogue version the change
+ * produced. UPSERT carries the book as committed, DELETE only its id, and RESET means the
+ * whole catalogue was reloaded (an import or snapshot restore): consumers must re-read it.
+ * PRICES marks a batch of price-feed updates; prices are not listed, callers holding them
+ * look them up again via {@code /api/books/prices}.
+ */
+public record BookChange(long seq, Type type, Long id, Snapshot book) {
+
+    public enum Type { UPSERT, DELETE, RESET, PRICES }
+
+    /**
+     * The book's visible fields as of the append, with the same JSON shape as {@link Book}.
+     * Entities stay mutable and are shared with the cache, so the feed keeps its own copy.
+     */
+    public record Snapshot(Long id, String title, String author, String description, String genre,
+                           Double price, Double averageRating) {
+
+        static Snapshot of(Book b) {
+            return new Snapshot(b.getId(), b.getTitle(), b.getAuthor(), b.getDescription(), b.getGenre(),
+                    b.getPrice(), b.getAverageRating());
+        }
+    }
+}
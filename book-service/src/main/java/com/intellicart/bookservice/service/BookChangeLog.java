@@ -0,0 +1,102 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Append-only feed of committed catalogue changes, kept in a fixed-size ring. Every entry
+ * bumps the {@link CatalogueVersion} and takes the new version as its sequence number, so
+ * sequence numbers are contiguous. Readers behind the oldest retained entry are told to
+ * reset. Long-poll readers park a future that the next append completes.
+ */
+@Component
+public class BookChangeLog {
+
+    private record Waiter(long since, int limit, CompletableFuture<BookChanges> future) {}
+
+    private final CatalogueVersion version;
+    private final BookChange[] ring;
+    private final List<Waiter> waiters = new ArrayList<>();
+    private long oldest;
+
+    public BookChangeLog(CatalogueVersion version,
+                         @Value("${app.books.changes.capacity:10000}") int capacity) {
+        this.version = version;
+        this.ring = new BookChange[Math.max(1, capacity)];
+        this.oldest = version.current() + 1;
+    }
+
+    public long latest() {
+        return version.current();
+    }
+
+    void upserted(Book book) {
+        append(BookChange.Type.UPSERT, book.getId(), BookChange.Snapshot.of(book));
+    }
+
+    void deleted(Long id) {
+        append(BookChange.Type.DELETE, id, null);
+    }
+
+    void reset() {
+        append(BookChange.Type.RESET, null, null);
+    }
+
+    void pricesChanged() {
+        append(BookChange.Type.PRICES, null, null);
+    }
+
+    /** Up to {@code limit} changes after {@code since}; see {@link BookChanges}. */
+    public synchronized BookChanges read(long since, int limit) {
+        long latest = version.current();
+        if (since > latest || since + 1 < oldest) {
+            return new BookChanges(latest, true, List.of());
+        }
+        List<BookChange> out = new ArrayList<>((int) Math.min(limit, latest - since));
+        long seq = since + 1;
+        for (; seq <= latest && out.size() < limit; seq++) {
+            out.add(ring[slot(seq)]);
+        }
+        return new BookChanges(seq - 1, false, out);
+    }
+
+    /**
+     * Completes with the changes after {@code since} as soon as there are any: at once if
+     * the log is already past it, otherwise on the next append. Cancel the future to stop
+     * waiting.
+     */
+    public synchronized CompletableFuture<BookChanges> await(long since, int limit) {
+        BookChanges now = read(since, limit);
+        if (now.reset() || !now.changes().isEmpty()) {
+            return CompletableFuture.completedFuture(now);
+        }
+        waiters.removeIf(w -> w.future().isDone());
+        CompletableFuture<BookChanges> future = new CompletableFuture<>();
+        waiters.add(new Waiter(since, limit, future));
+        return future;
+    }
+
+    private void append(BookChange.Type type, Long id, BookChange.Snapshot book) {
+        List<Waiter> wake;
+        synchronized (this) {
+            long seq = version.bump();
+            ring[slot(seq)] = new BookChange(seq, type, id, book);
+            if (seq - oldest >= ring.length) oldest = seq - ring.length + 1;
+            wake = new ArrayList<>(waiters);
+            waiters.clear();
+        }
+        // completed outside the lock: completion runs the waiting request's callbacks
+        for (Waiter w : wake) {
+            if (!w.future().isDone()) w.future().complete(read(w.since(), w.limit()));
+        }
+    }
+
+    private int slot(long seq) {
+        return (int) Math.floorMod(seq, (long) ring.length);
+    }
+}
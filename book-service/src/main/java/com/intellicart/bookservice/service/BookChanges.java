@@ -0,0 +1,12 @@
+package com.intellicart.bookservice.service;
+
+import java.util.List;
+
+/**
+ * Reply to a change-feed read: the changes after the requested sequence number, oldest
+ * first, and {@code latest}, the sequence to ask from next time. {@code reset} is set
+ * when the requested sequence is no longer in the log (too old, or from an earlier run):
+ * the consumer must re-read the catalogue and continue from {@code latest}.
+ */
+public record BookChanges(long latest, boolean reset, List<BookChange> changes) {
+}
@@ -0,0 +1,396 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory facet bitmaps over the catalogue: one bitmap per genre and language value and
+ * one per rating and price bucket, all over dense book ordinals. A filtered query is a
+ * handful of bitmap intersections; only books in a range bucket that straddles a bound
+ * have their value checked. Facet counts are disjunctive: each facet is counted under the
+ * other facets' filters, so picking a genre still shows how many books the other genres hold.
+ *
+ * An updated book keeps its ordinal; a deleted one leaves a cleared hole that the next
+ * {@link #rebuild} reclaims. A rebuild fills fresh bitmaps without holding the lock and
+ * swaps them in at the end.
+ */
+@Component
+public class BookFacetIndex {
+
+    public static final String GENRE = "genre";
+    public static final String LANG = "lang";
+    public static final String RATING = "rating";
+    public static final String PRICE = "price";
+
+    // lower bucket edges; the last bucket is open-ended
+    private static final double[] RATING_EDGES = {0, 1, 2, 3, 3.5, 4, 4.5};
+    private static final double[] PRICE_EDGES = {0, 5, 10, 20, 50, 100};
+
+    // most frequent values reported per genre/lang facet
+    private static final int MAX_FACET_VALUES = 20;
+
+    /** Ids of one page of matches in id order, the number of matches and the facet counts. */
+    public record Page(List<Long> ids, int total, Map<String, Map<String, Integer>> facets) {}
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuilding = new Object();
+
+    private Map<Long, Integer> ordinals = new HashMap<>();
+    private BitSet live = new BitSet();
+    private Map<String, BitSet> genres = new HashMap<>();
+    private Map<String, BitSet> langs = new HashMap<>();
+    private RangeFacet ratings = new RangeFacet(RATING_EDGES);
+    private RangeFacet prices = new RangeFacet(PRICE_EDGES);
+    private long[] ids = new long[1024];
+    private String[] genreOf = new String[1024];
+    private String[] langOf = new String[1024];
+    private int size;
+    private boolean idsAscending = true;  // ordinal order is id order, so keyset pages can seek
+
+    // writes made while a rebuild reads its source, replayed onto the new bitmaps; guarded by lock
+    private List<Consumer<BookFacetIndex>> pending;
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the index contents with the books the source feeds to its consumer. The new
+     * bitmaps are built outside the lock; writes that arrive meanwhile go to the old ones and
+     * are replayed onto the new ones before they are swapped in.
+     */
+    public void rebuild(Consumer<Consumer<Book>> source) {
+        synchronized (rebuilding) {
+            setPending(new ArrayList<>());
+            BookFacetIndex fresh = new BookFacetIndex();
+            try {
+                source.accept(b -> fresh.set(fresh.append(b.getId()), b));
+            } catch (RuntimeException e) {
+                setPending(null);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Consumer<BookFacetIndex> write : pending) write.accept(fresh);
+                pending = null;
+                ordinals = fresh.ordinals;
+                live = fresh.live;
+                genres = fresh.genres;
+                langs = fresh.langs;
+                ratings = fresh.ratings;
+                prices = fresh.prices;
+                ids = fresh.ids;
+                genreOf = fresh.genreOf;
+                langOf = fresh.langOf;
+                size = fresh.size;
+                idsAscending = fresh.idsAscending;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(Book book) {
+        if (book == null || book.getId() == null) return;
+        write(ix -> {
+            Integer ord = ix.ordinals.get(book.getId());
+            if (ord != null) {
+                ix.unset(ord);
+            } else {
+                ord = ix.append(book.getId());
+            }
+            ix.set(ord, book);
+        });
+    }
+
+    public void remove(Long id) {
+        write(ix -> {
+            Integer ord = ix.ordinals.remove(id);
+            if (ord != null) ix.unset(ord);
+        });
+    }
+
+    /** New prices for indexed books, NaN meaning none; ids not in the index are skipped. */
+    public void updatePrices(long[] bookIds, double[] values, int n) {
+        long[] idsCopy = Arrays.copyOf(bookIds, n);
+        double[] valuesCopy = Arrays.copyOf(values, n);
+        write(ix -> {
+            for (int i = 0; i < n; i++) {
+                Integer ord = ix.ordinals.get(idsCopy[i]);
+                if (ord == null) continue;
+                ix.prices.unset(ord);
+                ix.prices.set(ord, Double.isNaN(valuesCopy[i]) ? null : valuesCopy[i]);
+            }
+        });
+    }
+
+    /** Applies a write to these bitmaps and, during a rebuild, queues it for the new ones too. */
+    private void write(Consumer<BookFacetIndex> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(this);
+            if (pending != null) pending.add(write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPending(List<Consumer<BookFacetIndex>> writes) {
+        lock.writeLock().lock();
+        try {
+            pending = writes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Indexed prices of {@code bookIds}; books not indexed or without a price are left out. */
+    public Map<Long, Double> prices(Collection<Long> bookIds) {
+        lock.readLock().lock();
+        try {
+            Map<Long, Double> out = new LinkedHashMap<>();
+            for (Long id : bookIds) {
+                Integer ord = ordinals.get(id);
+                if (ord == null) continue;
+                double v = prices.value(ord);
+                if (!Double.isNaN(v)) out.put(id, v);
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} matching ids greater than {@code after}, in id order. */
+    public Page query(BookFilter filter, Long after, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet genre = filter.genre() == null ? null : valueSet(genres, filter.genre());
+            BitSet lang = filter.lang() == null ? null : valueSet(langs, filter.lang());
+            BitSet rating = ratings.select(filter.minRating(), filter.maxRating());
+            BitSet price = prices.select(filter.minPrice(), filter.maxPrice());
+
+            BitSet matches = intersect(live, genre, lang, rating, price);
+
+            Map<String, Map<String, Integer>> facets = new LinkedHashMap<>();
+            facets.put(GENRE, valueCounts(genres, intersect(live, lang, rating, price)));
+            facets.put(LANG, valueCounts(langs, intersect(live, genre, rating, price)));
+            facets.put(RATING, ratings.counts(intersect(live, genre, lang, price)));
+            facets.put(PRICE, prices.counts(intersect(live, genre, lang, rating)));
+
+            return new Page(page(matches, after == null ? 0L : after, limit), matches.cardinality(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Long> page(BitSet matches, long after, int limit) {
+        List<Long> out = new ArrayList<>(Math.min(limit, 256));
+        if (idsAscending) {
+            int from = Arrays.binarySearch(ids, 0, size, after);
+            from = from >= 0 ? from + 1 : -from - 1;
+            for (int o = matches.nextSetBit(from); o >= 0 && out.size() < limit; o = matches.nextSetBit(o + 1)) {
+                out.add(ids[o]);
+            }
+            return out;
+        }
+        for (int o = matches.nextSetBit(0); o >= 0; o = matches.nextSetBit(o + 1)) {
+            if (ids[o] > after) out.add(ids[o]);
+        }
+        Collections.sort(out);
+        return out.size() > limit ? new ArrayList<>(out.subList(0, limit)) : out;
+    }
+
+    private int append(Long id) {
+        int ord = size++;
+        if (ord == ids.length) {
+            ids = Arrays.copyOf(ids, ord * 2);
+            genreOf = Arrays.copyOf(genreOf, ord * 2);
+            langOf = Arrays.copyOf(langOf, ord * 2);
+        }
+        if (ord > 0 && id < ids[ord - 1]) idsAscending = false;
+        ids[ord] = id;
+        ordinals.put(id, ord);
+        return ord;
+    }
+
+    private void set(int ord, Book book) {
+        live.set(ord);
+        String g = book.getGenre() == null ? null : book.getGenre().trim();
+        if (g == null || g.isEmpty()) {
+            genreOf[ord] = null;
+            langOf[ord] = null;
+        } else if (g.regionMatches(true, 0, BookFilter.LANG_PREFIX, 0, BookFilter.LANG_PREFIX.length())) {
+            genreOf[ord] = null;
+            langOf[ord] = key(g.substring(BookFilter.LANG_PREFIX.length()));
+        } else {
+            genreOf[ord] = key(g);
+            langOf[ord] = null;
+        }
+        if (genreOf[ord] != null) genres.computeIfAbsent(genreOf[ord], k -> new BitSet()).set(ord);
+        if (langOf[ord] != null) langs.computeIfAbsent(langOf[ord], k -> new BitSet()).set(ord);
+        ratings.set(ord, book.getAverageRating());
+        prices.set(ord, book.getPrice());
+    }
+
+    private void unset(int ord) {
+        live.clear(ord);
+        clearValue(genres, genreOf[ord], ord);
+        clearValue(langs, langOf[ord], ord);
+        genreOf[ord] = null;
+        langOf[ord] = null;
+        ratings.unset(ord);
+        prices.unset(ord);
+    }
+
+    private static void clearValue(Map<String, BitSet> values, String value, int ord) {
+        if (value == null) return;
+        BitSet bits = values.get(value);
+        if (bits == null) return;
+        bits.clear(ord);
+        if (bits.isEmpty()) values.remove(value);
+    }
+
+    private static BitSet valueSet(Map<String, BitSet> values, String value) {
+        BitSet bits = values.get(key(value));
+        return bits != null ? bits : new BitSet();
+    }
+
+    /** Most frequent values first, ties by name. */
+    private static Map<String, Integer> valueCounts(Map<String, BitSet> values, BitSet mask) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Map.Entry<String, BitSet> e : values.entrySet()) {
+            int n = andCardinality(e.getValue(), mask);
+            if (n > 0) counts.add(Map.entry(e.getKey(), n));
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed()
+                .thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> out = new LinkedHashMap<>();
+        for (int i = 0; i < counts.size() && i < MAX_FACET_VALUES; i++) {
+            out.put(counts.get(i).getKey(), counts.get(i).getValue());
+        }
+        return out;
+    }
+
+    /** {@code base} AND every non-null mask, as a new bitmap. */
+    private static BitSet intersect(BitSet base, BitSet... masks) {
+        BitSet out = (BitSet) base.clone();
+        for (BitSet m : masks) {
+            if (m != null) out.and(m);
+        }
+        return out;
+    }
+
+    private static int andCardinality(BitSet a, BitSet b) {
+        BitSet both = (BitSet) a.clone();
+        both.and(b);
+        return both.cardinality();
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Bucketed numeric facet; books without a value are in no bucket. */
+    private static final class RangeFacet {
+
+        private final double[] edges;
+        private final BitSet[] buckets;
+        private double[] values = new double[1024];
+
+        RangeFacet(double[] edges) {
+            this.edges = edges;
+            this.buckets = new BitSet[edges.length];
+            clear();
+        }
+
+        void clear() {
+            for (int i = 0; i < buckets.length; i++) buckets[i] = new BitSet();
+        }
+
+        void set(int ord, Double value) {
+            if (ord >= values.length) values = Arrays.copyOf(values, Math.max(ord + 1, values.length * 2));
+            double v = value == null ? Double.NaN : value;
+            values[ord] = v;
+            int b = bucket(v);
+            if (b >= 0) buckets[b].set(ord);
+        }
+
+        void unset(int ord) {
+            int b = bucket(values[ord]);
+            if (b >= 0) buckets[b].clear(ord);
+            values[ord] = Double.NaN;
+        }
+
+        double value(int ord) {
+            return ord < values.length ? values[ord] : Double.NaN;
+        }
+
+        /** Ordinals whose value lies in [min, max]; null when neither bound is given. */
+        BitSet select(Double min, Double max) {
+            if (min == null && max == null) return null;
+            double lo = min == null ? Double.NEGATIVE_INFINITY : min;
+            double hi = max == null ? Double.POSITIVE_INFINITY : max;
+            BitSet out = new BitSet();
+            for (int i = 0; i < edges.length; i++) {
+                double from = edges[i];
+                double to = upper(i);
+                if (to <= lo || from > hi) continue;
+                if (from >= lo && to <= hi) {
+                    out.or(buckets[i]);
+                    continue;
+                }
+                // bucket straddles a bound: check the values themselves
+                BitSet b = buckets[i];
+                for (int o = b.nextSetBit(0); o >= 0; o = b.nextSetBit(o + 1)) {
+                    if (values[o] >= lo && values[o] <= hi) out.set(o);
+                }
+            }
+            return out;
+        }
+
+        Map<String, Integer> counts(BitSet mask) {
+            Map<String, Integer> out = new LinkedHashMap<>();
+            for (int i = 0; i < edges.length; i++) {
+                int n = andCardinality(buckets[i], mask);
+                if (n > 0) out.put(label(i), n);
+            }
+            return out;
+        }
+
+        private int bucket(double v) {
+            if (Double.isNaN(v) || v < edges[0]) return -1;
+            int i = edges.length - 1;
+            while (v < edges[i]) i--;
+            return i;
+        }
+
+        private double upper(int i) {
+            return i + 1 < edges.length ? edges[i + 1] : Double.POSITIVE_INFINITY;
+        }
+
+        private String label(int i) {
+            return i + 1 < edges.length ? format(edges[i]) + "-" + format(edges[i + 1]) : format(edges[i]) + "+";
+        }
+
+        private static String format(double v) {
+            return v == Math.rint(v) ? Long.toString((long) v) : Double.toString(v);
+        }
+    }
+}
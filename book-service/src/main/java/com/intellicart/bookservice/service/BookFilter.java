@@ -0,0 +1,32 @@
+package com.intellicart.bookservice.service;
+
+/**
+ * Facet filter for catalogue queries. Every criterion is optional; ranges are inclusive
+ * and exclude books without a value. A genre of the form "Lang:xx" (how the Goodreads
+ * import records the language) is treated as a language filter.
+ */
+public record BookFilter(String genre, String lang,
+                         Double minRating, Double maxRating,
+                         Double minPrice, Double maxPrice) {
+
+    public static final String LANG_PREFIX = "Lang:";
+
+    public BookFilter {
+        if (genre != null && genre.regionMatches(true, 0, LANG_PREFIX, 0, LANG_PREFIX.length())) {
+            if (lang == null) lang = genre.substring(LANG_PREFIX.length());
+            genre = null;
+        }
+        genre = blankToNull(genre);
+        lang = blankToNull(lang);
+    }
+
+    public boolean isEmpty() {
+        return genre == null && lang == null
+                && minRating == null && maxRating == null
+                && minPrice == null && maxPrice == null;
+    }
+
+    private static String blankToNull(String s) {
+        return s == null || s.isBlank() ? null : s.trim();
+    }
+}
@@ -0,0 +1,15 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of a faceted catalogue query. {@code total} counts every match, {@code nextAfter}
+ * is the keyset cursor for the next page (null on the last one) and {@code facets} maps each
+ * facet (genre, lang, rating, price) to value counts under the other facets' filters.
+ */
+public record BookQueryResult(List<Book> items, int total, Long nextAfter,
+                              Map<String, Map<String, Integer>> facets) {
+}
@@ -0,0 +1,454 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.SearchText;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * In-memory inverted index over book titles and authors. Every query term must match a
+ * title or author token, either exactly or as a prefix ("harr pot" finds "Harry Potter").
+ * A second, trigram index serves typo-tolerant lookups ("hary poter").
+ *
+ * Books are numbered with dense ordinals in insertion order, so postings lists are sorted
+ * int arrays. Updates and deletes tombstone the old ordinal; the index compacts itself once
+ * tombstones pile up. A rebuild fills a fresh index without holding the lock and swaps it
+ * in at the end, so searches keep being served from the old one meanwhile.
+ */
+@Component
+public class BookSearchIndex {
+
+    // per-term score: where and how the term matched
+    private static final int TITLE_EXACT = 4;
+    private static final int TITLE_PREFIX = 3;
+    private static final int AUTHOR_EXACT = 2;
+    private static final int AUTHOR_PREFIX = 1;
+
+    private static final int COMPACT_MIN_DELETED = 1024;
+
+    // share of the query's trigrams a book must contain to be a fuzzy candidate
+    private static final double MIN_COVERAGE = 0.5;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Object rebuilding = new Object();
+
+    private TreeMap<String, IntList> titleTerms = new TreeMap<>();
+    private TreeMap<String, IntList> authorTerms = new TreeMap<>();
+    private Map<Long, IntList> trigrams = new HashMap<>();
+    private Map<Long, Integer> ordinals = new HashMap<>();
+    private BitSet deleted = new BitSet();
+    private long[] ids = new long[1024];
+    private int[] titleLengths = new int[1024]; // title tokens, shorter titles rank first on ties
+    private int[] gramCounts = new int[1024];   // distinct title/author trigrams
+    private double[] ratings = new double[1024];  // averageRating, -Infinity when unknown
+    private int size;
+    private int deletedCount;
+
+    // writes made while a rebuild reads its source, replayed onto the new index; guarded by lock
+    private List<Consumer<BookSearchIndex>> pending;
+
+    private volatile boolean ready;
+
+    // per-thread trigram hit counters for fuzzy(), all zero between queries
+    private final ThreadLocal<int[]> fuzzyScratch = ThreadLocal.withInitial(() -> new int[1024]);
+
+    /** True once the index has been built; until then callers should fall back to the database. */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Replaces the index contents with the books the source feeds to its consumer. The new
+     * index is built outside the lock; puts and removes that arrive meanwhile go to the old
+     * one and are replayed onto the new one before it is swapped in.
+     */
+    public void rebuild(Consumer<Consumer<Book>> source) {
+        synchronized (rebuilding) {
+            setPending(new ArrayList<>());
+            BookSearchIndex fresh = new BookSearchIndex();
+            try {
+                source.accept(fresh::add);
+            } catch (RuntimeException e) {
+                setPending(null);
+                throw e;
+            }
+            lock.writeLock().lock();
+            try {
+                for (Consumer<BookSearchIndex> write : pending) write.accept(fresh);
+                pending = null;
+                fresh.compactIfNeeded();
+                titleTerms = fresh.titleTerms;
+                authorTerms = fresh.authorTerms;
+                trigrams = fresh.trigrams;
+                ordinals = fresh.ordinals;
+                deleted = fresh.deleted;
+                ids = fresh.ids;
+                titleLengths = fresh.titleLengths;
+                gramCounts = fresh.gramCounts;
+                ratings = fresh.ratings;
+                size = fresh.size;
+                deletedCount = fresh.deletedCount;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    public void put(Book book) {
+        if (book == null || book.getId() == null) return;
+        write(ix -> {
+            ix.delete(book.getId());
+            ix.add(book);
+            ix.compactIfNeeded();
+        });
+    }
+
+    public void remove(Long id) {
+        write(ix -> {
+            ix.delete(id);
+            ix.compactIfNeeded();
+        });
+    }
+
+    /** Applies a write to this index and, during a rebuild, queues it for the new one too. */
+    private void write(Consumer<BookSearchIndex> write) {
+        lock.writeLock().lock();
+        try {
+            write.accept(this);
+            if (pending != null) pending.add(write);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setPending(List<Consumer<BookSearchIndex>> writes) {
+        lock.writeLock().lock();
+        try {
+            pending = writes;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Result order for {@link #search} and {@link #fuzzy}; ties fall back to relevance. */
+    public enum Sort {
+        RELEVANCE, RATING;
+
+        /** Accepts "relevance" and "averageRating" (or "rating"), case-insensitively. */
+        public static Sort parse(String s) {
+            if (s == null || s.isBlank() || s.equalsIgnoreCase("relevance")) return RELEVANCE;
+            if (s.equalsIgnoreCase("averageRating") || s.equalsIgnoreCase("rating")) return RATING;
+            throw new IllegalArgumentException("unknown sort: " + s);
+        }
+    }
+
+    /**
+     * Ids of the top {@code limit} books matching every term of {@code q}, best first. Only
+     * a heap of {@code limit} candidates is kept, however many books match.
+     */
+    public List<Long> search(String q, int limit, Sort sort) {
+        Set<String> terms = new LinkedHashSet<>(tokens(q));
+        if (terms.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int[] ords = null;
+            int[] scores = null;
+            for (String term : terms) {
+                long[] hits = matches(term);
+                int[] termOrds = new int[hits.length];
+                int[] termScores = new int[hits.length];
+                for (int i = 0; i < hits.length; i++) {
+                    termOrds[i] = (int) (hits[i] >>> 3);
+                    termScores[i] = (int) (hits[i] & 7);
+                }
+                if (ords == null) {
+                    ords = termOrds;
+                    scores = termScores;
+                } else {
+                    int n = 0;
+                    for (int i = 0, j = 0; i < ords.length && j < termOrds.length; ) {
+                        if (ords[i] < termOrds[j]) i++;
+                        else if (ords[i] > termOrds[j]) j++;
+                        else {
+                            ords[n] = ords[i];
+                            scores[n] = scores[i] + termScores[j];
+                            n++; i++; j++;
+                        }
+                    }
+                    ords = Arrays.copyOf(ords, n);
+                    scores = Arrays.copyOf(scores, n);
+                }
+                if (ords.length == 0) return List.of();
+            }
+
+            int[] o = ords;
+            int[] s = scores;
+            Comparator<Integer> byRelevance = Comparator.<Integer>comparingInt(i -> s[i])
+                    .thenComparingInt(i -> -titleLengths[o[i]]);
+            return topK(o, limit, sort == Sort.RATING ? byRating(o).thenComparing(byRelevance) : byRelevance);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Typo-tolerant lookup: ranks books by how many of the query's trigrams occur in their
+     * title or author, then by trigram similarity (so shorter, closer titles win), and
+     * returns at most {@code limit} ids. Books sharing less than half of the query's
+     * trigrams are not candidates.
+     */
+    public List<Long> fuzzy(String q, int limit, Sort sort) {
+        Set<Long> grams = trigrams(tokens(q));
+        if (grams.isEmpty() || limit <= 0) return List.of();
+
+        lock.readLock().lock();
+        try {
+            int[] common = scratch(size);
+            IntList touched = new IntList();
+            for (Long g : grams) {
+                IntList postings = trigrams.get(g);
+                if (postings == null) continue;
+                for (int i = 0; i < postings.size(); i++) {
+                    int ord = postings.get(i);
+                    if (deleted.get(ord)) continue;
+                    if (common[ord]++ == 0) touched.add(ord);
+                }
+            }
+
+            int queryGrams = grams.size();
+            int minCommon = (int) Math.ceil(queryGrams * MIN_COVERAGE);
+            IntList candidates = new IntList();
+            IntList counts = new IntList();
+            for (int i = 0; i < touched.size(); i++) {
+                int ord = touched.get(i);
+                if (common[ord] >= minCommon) {
+                    candidates.add(ord);
+                    counts.add(common[ord]);
+                }
+                common[ord] = 0;  // hand the scratch array back zeroed
+            }
+            int[] c = candidates.toArray();
+            int[] shared = counts.toArray();
+
+            Comparator<Integer> bySimilarity = Comparator.<Integer>comparingInt(i -> shared[i])
+                    .thenComparingDouble(i -> shared[i] / (double) (queryGrams + gramCounts[c[i]] - shared[i]));
+            return topK(c, limit, sort == Sort.RATING ? byRating(c).thenComparing(bySimilarity) : bySimilarity);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int[] scratch(int n) {
+        int[] counts = fuzzyScratch.get();
+        if (counts.length < n) {
+            counts = new int[Math.max(n, counts.length * 2)];
+            fuzzyScratch.set(counts);
+        }
+        return counts;
+    }
+
+    /**
+     * Whether {@code book} would be a candidate for the query under the same rules as
+     * {@link #search} (every term prefixes a title or author token) or {@link #fuzzy}
+     * (enough shared trigrams). Used to invalidate cached results when a book changes.
+     */
+    static boolean couldMatch(String q, boolean fuzzy, Book book) {
+        List<String> words = new ArrayList<>(tokens(book.getTitle()));
+        words.addAll(tokens(book.getAuthor()));
+        if (fuzzy) {
+            Set<Long> grams = trigrams(tokens(q));
+            if (grams.isEmpty()) return false;
+            int minCommon = (int) Math.ceil(grams.size() * MIN_COVERAGE);
+            grams.retainAll(trigrams(words));
+            return grams.size() >= minCommon;
+        }
+        List<String> terms = tokens(q);
+        if (terms.isEmpty()) return false;
+        for (String term : terms) {
+            boolean found = false;
+            for (String w : words) {
+                if (w.startsWith(term)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /** Higher rating ranks higher; books without one rank last. */
+    private Comparator<Integer> byRating(int[] ords) {
+        return Comparator.comparingDouble(i -> ratings[ords[i]]);
+    }
+
+    /**
+     * Bounded top-K over candidate positions: {@code worstFirst} orders positions from worst
+     * to best, lower ordinals win remaining ties. Returns ids best first.
+     */
+    private List<Long> topK(int[] ords, int limit, Comparator<Integer> worstFirst) {
+        Comparator<Integer> cmp = worstFirst.thenComparingInt(i -> -ords[i]);
+        PriorityQueue<Integer> top = new PriorityQueue<>(Math.min(limit, ords.length) + 1, cmp);
+        for (int i = 0; i < ords.length; i++) {
+            if (top.size() == limit && cmp.compare(i, top.peek()) <= 0) continue;
+            top.add(i);
+            if (top.size() > limit) top.poll();
+        }
+        Long[] out = new Long[top.size()];
+        for (int k = out.length - 1; k >= 0; k--) out[k] = ids[ords[top.poll()]];
+        return Arrays.asList(out);
+    }
+
+    /**
+     * Live ordinals whose title or author has a token starting with {@code term}, as
+     * (ordinal << 3 | score) sorted by ordinal, one entry per ordinal with its best score.
+     */
+    private long[] matches(String term) {
+        long[] hits = new long[16];
+        int n = 0;
+        for (int f = 0; f < 2; f++) {
+            TreeMap<String, IntList> field = f == 0 ? titleTerms : authorTerms;
+            for (Map.Entry<String, IntList> e : field.subMap(term, true, term + Character.MAX_VALUE, false).entrySet()) {
+                boolean exact = e.getKey().length() == term.length();
+                int score = f == 0 ? (exact ? TITLE_EXACT : TITLE_PREFIX) : (exact ? AUTHOR_EXACT : AUTHOR_PREFIX);
+                IntList postings = e.getValue();
+                for (int i = 0; i < postings.size(); i++) {
+                    int ord = postings.get(i);
+                    if (deleted.get(ord)) continue;
+                    if (n == hits.length) hits = Arrays.copyOf(hits, n * 2);
+                    hits[n++] = ((long) ord << 3) | score;
+                }
+            }
+        }
+        Arrays.sort(hits, 0, n);
+        // sorted by ordinal then score, so the last entry of each ordinal has the best score
+        int m = 0;
+        for (int i = 0; i < n; i++) {
+            if (i + 1 < n && (hits[i + 1] >>> 3) == (hits[i] >>> 3)) continue;
+            hits[m++] = hits[i];
+        }
+        return Arrays.copyOf(hits, m);
+    }
+
+    private void add(Book book) {
+        int ord = size++;
+        if (ord == ids.length) {
+            ids = Arrays.copyOf(ids, ord * 2);
+            titleLengths = Arrays.copyOf(titleLengths, ord * 2);
+            gramCounts = Arrays.copyOf(gramCounts, ord * 2);
+            ratings = Arrays.copyOf(ratings, ord * 2);
+        }
+        ids[ord] = book.getId();
+        ordinals.put(book.getId(), ord);
+        ratings[ord] = book.getAverageRating() != null ? book.getAverageRating() : Double.NEGATIVE_INFINITY;
+
+        Set<String> title = new LinkedHashSet<>(tokens(book.getTitle()));
+        titleLengths[ord] = title.size();
+        for (String t : title) titleTerms.computeIfAbsent(t, k -> new IntList()).add(ord);
+        List<String> author = tokens(book.getAuthor());
+        for (String t : new LinkedHashSet<>(author)) {
+            authorTerms.computeIfAbsent(t, k -> new IntList()).add(ord);
+        }
+
+        List<String> words = new ArrayList<>(title);
+        words.addAll(author);
+        Set<Long> grams = trigrams(words);
+        gramCounts[ord] = grams.size();
+        for (Long g : grams) trigrams.computeIfAbsent(g, k -> new IntList()).add(ord);
+    }
+
+    private void delete(Long id) {
+        Integer ord = ordinals.remove(id);
+        if (ord != null) {
+            deleted.set(ord);
+            deletedCount++;
+        }
+    }
+
+    /** Drops tombstoned ordinals once they make up a quarter of the index. */
+    private void compactIfNeeded() {
+        if (deletedCount < COMPACT_MIN_DELETED || deletedCount * 4 < size) return;
+
+        int[] mapping = new int[size];
+        int next = 0;
+        for (int ord = 0; ord < size; ord++) {
+            if (deleted.get(ord)) {
+                mapping[ord] = -1;
+            } else {
+                ids[next] = ids[ord];
+                titleLengths[next] = titleLengths[ord];
+                gramCounts[next] = gramCounts[ord];
+                ratings[next] = ratings[ord];
+                mapping[ord] = next++;
+            }
+        }
+        remap(titleTerms, mapping);
+        remap(authorTerms, mapping);
+        remap(trigrams, mapping);
+        ordinals.clear();
+        for (int ord = 0; ord < next; ord++) ordinals.put(ids[ord], ord);
+        deleted.clear();
+        size = next;
+        deletedCount = 0;
+    }
+
+    private static void remap(Map<?, IntList> terms, int[] mapping) {
+        Iterator<IntList> it = terms.values().iterator();
+        while (it.hasNext()) {
+            IntList postings = it.next();
+            postings.remap(mapping);
+            if (postings.isEmpty()) it.remove();
+        }
+    }
+
+    /**
+     * Distinct trigrams of the words, each padded as "  word " so short words and word
+     * starts still produce grams. Three chars are packed into one long.
+     */
+    static Set<Long> trigrams(Collection<String> words) {
+        Set<Long> out = new HashSet<>();
+        for (String w : words) {
+            String padded = "  " + w + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                out.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16) | padded.charAt(i + 2));
+            }
+        }
+        return out;
+    }
+
+    /** Runs of letters and digits of the {@link SearchText#fold folded} text, as stored in title_key. */
+    static List<String> tokens(String raw) {
+        String s = SearchText.fold(raw);
+        if (s == null || s.isEmpty()) return List.of();
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= s.length(); i++) {
+            boolean word = i < s.length() && Character.isLetterOrDigit(s.charAt(i));
+            if (word && start < 0) {
+                start = i;
+            } else if (!word && start >= 0) {
+                out.add(s.substring(start, i));
+                start = -1;
+            }
+        }
+        return out;
+    }
+}
@@ -1,96 +1,389 @@
 package com.intellicart.bookservice.service;
 
 import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.domain.BookPatch;
+import com.intellicart.bookservice.domain.SearchText;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
 import com.intellicart.bookservice.infrastructure.BookRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 public class BookService {
 
+    private static final int REINDEX_PAGE = 1000;
+
     private final BookRepository repo;
+    private final BookSearchIndex searchIndex;
+    private final BookFacetIndex facetIndex;
+    private final BookCache cache;
+    private final BookChangeLog changes;
+    private final BookBatchWriter writer;
+
+    @PersistenceContext
+    private EntityManager em;
 
-    public BookService(BookRepository repo) {
+    public BookService(BookRepository repo, BookSearchIndex searchIndex, BookFacetIndex facetIndex,
+                       BookCache cache, BookChangeLog changes, BookBatchWriter writer) {
         this.repo = repo;
+        this.searchIndex = searchIndex;
+        this.facetIndex = facetIndex;
+        this.cache = cache;
+        this.changes = changes;
+        this.writer = writer;
+    }
+
+    /** Rebuilds the in-memory search structures from the database, e.g. after an import. */
+    public void reindex() {
+        // one pass over the table feeds both indexes
+        searchIndex.rebuild(toSearch -> facetIndex.rebuild(toFacets -> forEachBook(b -> {
+            toSearch.accept(b);
+            toFacets.accept(b);
+        })));
+        cache.clear();
+        changes.reset();
+    }
+
+    /** Sequence of the newest committed change. */
+    public long changesHead() {
+        return changes.latest();
+    }
+
+    /** Committed changes after {@code since}, oldest first. */
+    public BookChanges changes(long since, int limit) {
+        return changes.read(since, limit);
+    }
+
+    /** Like {@link #changes} but completes only once there is something to report. */
+    public CompletableFuture<BookChanges> awaitChanges(long since, int limit) {
+        return changes.await(since, limit);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (!searchIndex.isReady() || !facetIndex.isReady()) {
+            reindex();
+        }
+    }
+
+    /** Keyset page: up to {@code limit} books with an id greater than {@code after}, in id order. */
+    public List<Book> page(Long after, int limit) {
+        return repo.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, Limit.of(limit));
     }
 
-    public List<Book> all() {
-        return repo.findAll();
+    /**
+     * Feeds every book to {@code action} in id order from a database cursor. Each entity is
+     * detached once handled, so the persistence context never holds more than one row.
+     */
+    @Transactional(readOnly = true)
+    public void streamAll(Consumer<Book> action) {
+        try (Stream<Book> books = repo.streamAll()) {
+            books.forEach(b -> {
+                action.accept(b);
+                em.detach(b);
+            });
+        }
     }
 
     public Optional<Book> get(Long id) {
-        return repo.findById(id);
+        return cache.book(id, repo::findById);
+    }
+
+    /** Books for {@code ids} in request order, unknown ids skipped; one query for all cache misses. */
+    public List<Book> getAll(List<Long> ids) {
+        return byIds(ids);
+    }
+
+    /**
+     * Id to price for the given books, in request order; books without a price are left out.
+     * Served from the facet index without touching the database once it is built.
+     */
+    public Map<Long, Double> prices(List<Long> ids) {
+        if (facetIndex.isReady()) return facetIndex.prices(ids);
+        Map<Long, Double> out = new LinkedHashMap<>();
+        for (Book b : byIds(ids)) {
+            if (b.getPrice() != null) out.put(b.getId(), b.getPrice());
+        }
+        return out;
     }
 
     public Optional<Book> getByExactTitle(String title) {
-        return repo.findByTitleIgnoreCase(title);
+        return cache.byTitle(title, t -> repo.findFirstByTitleKeyOrderByIdAsc(SearchText.fold(t)), repo::findById);
     }
 
-    public List<Book> searchByTitle(String q) {
-        return repo.findByTitleContainingIgnoreCase(q);
+    /**
+     * {@link #getByExactTitle} for many titles in one query, keyed by the title as asked and
+     * in request order; unknown titles are left out.
+     */
+    public Map<String, Book> getByExactTitles(List<String> titles) {
+        Map<String, String> keys = new LinkedHashMap<>();
+        for (String t : titles) {
+            String key = SearchText.fold(t);
+            if (key != null && !key.isEmpty()) keys.put(t, key);
+        }
+        if (keys.isEmpty()) return Map.of();
+        Map<String, Book> byKey = new HashMap<>();
+        for (Book b : repo.findByTitleKeyInOrderByIdAsc(new HashSet<>(keys.values()))) {
+            byKey.putIfAbsent(b.getTitleKey(), b);
+        }
+        Map<String, Book> out = new LinkedHashMap<>();
+        keys.forEach((title, key) -> {
+            Book b = byKey.get(key);
+            if (b != null) out.put(title, b);
+        });
+        return out;
+    }
+
+    /** Up to {@code limit} books whose title starts with {@code prefix} (case and accents ignored), by title. */
+    public List<Book> titlesStartingWith(String prefix, int limit) {
+        String key = SearchText.fold(prefix);
+        if (key == null || key.isEmpty()) return List.of();
+        return repo.findByTitleKeyStartingWithOrderByTitleKeyAscIdAsc(key, Limit.of(limit));
+    }
+
+    /** Top {@code limit} title/author matches; only those rows are loaded from the database. */
+    public List<Book> searchByTitle(String q, int limit, BookSearchIndex.Sort sort) {
+        if (!searchIndex.isReady()) {
+            return first(repo.findByTitleKeyContaining(SearchText.fold(q)), limit);
+        }
+        return byIds(cache.search(q, false, limit, sort, () -> searchIndex.search(q, limit, sort)));
+    }
+
+    /** Ranked, typo-tolerant matches on title and author, at most {@code limit} of them. */
+    public List<Book> fuzzySearch(String q, int limit, BookSearchIndex.Sort sort) {
+        if (!searchIndex.isReady()) {
+            return first(repo.findByTitleKeyContaining(SearchText.fold(q)), limit);
+        }
+        return byIds(cache.search(q, true, limit, sort, () -> searchIndex.fuzzy(q, limit, sort)));
+    }
+
+    /** Faceted page of the catalogue; empty while the facet index is still being built. */
+    public Optional<BookQueryResult> query(BookFilter filter, Long after, int limit) {
+        if (!facetIndex.isReady()) return Optional.empty();
+        BookFacetIndex.Page page = facetIndex.query(filter, after, limit);
+        List<Book> items = byIds(page.ids());
+        Long nextAfter = page.ids().size() == limit ? page.ids().get(limit - 1) : null;
+        return Optional.of(new BookQueryResult(items, page.total(), nextAfter, page.facets()));
     }
 
     @Transactional
     public Book create(Book book) {
-        return repo.save(book);
+        Book saved = repo.save(book);
+        afterCommit(() -> indexPut(null, saved));
+        return saved;
     }
 
     @Transactional
     public Optional<Book> update(Long id, Book updated) {
         return repo.findById(id).map(b -> {
+            Book before = rankedFields(b);
             b.setTitle(updated.getTitle());
             b.setAuthor(updated.getAuthor());
             b.setDescription(updated.getDescription());
             b.setGenre(updated.getGenre());
             b.setPrice(updated.getPrice());
             b.setAverageRating(updated.getAverageRating());
-            return repo.save(b);
+            Book saved = repo.save(b);
+            afterCommit(() -> indexPut(before, saved));
+            return saved;
         });
     }
 
+    /**
+     * Sparse update: one UPDATE of just the columns present in {@code patch}, without loading
+     * the entity. Returns the book as it is now, or empty when there is no such book.
+     *
+     * @throws IllegalArgumentException when the patch would blank the title
+     */
     @Transactional
-    public Optional<Book> updatePartial(Long id, Map<String, Object> patch) {
-        return repo.findById(id).map(b -> {
-            if (patch.containsKey("title")) {
-                Object v = patch.get("title");
-                b.setTitle(v != null ? v.toString() : null);
-            }
-            if (patch.containsKey("author")) {
-                Object v = patch.get("author");
-                b.setAuthor(v != null ? v.toString() : null);
+    public Optional<Book> patch(Long id, BookPatch patch) {
+        return applyPatch(id, patch, new LinkedHashMap<>());
+    }
+
+    /**
+     * Like {@link #patch}, but returns the fields whose value actually changed (plus the id)
+     * instead of the whole book.
+     *
+     * @throws IllegalArgumentException when the patch would blank the title
+     */
+    @Transactional
+    public Optional<Map<String, Object>> patchChanges(Long id, BookPatch patch) {
+        Map<String, Object> changed = new LinkedHashMap<>();
+        changed.put("id", id);
+        return applyPatch(id, patch, changed).map(b -> changed);
+    }
+
+    /** Applies {@code patch}, adding the changed fields to {@code changed}; the book as it is now. */
+    private Optional<Book> applyPatch(Long id, BookPatch patch, Map<String, Object> changed) {
+        String problem = patch.problem();
+        if (problem != null) throw new IllegalArgumentException(problem);
+        if (patch.isEmpty()) {
+            return writer.load(List.of(id)).stream().findFirst();
+        }
+        return writer.patch(id, patch).map(before -> {
+            Map<String, Object> delta = patch.changes(before);
+            changed.putAll(delta);
+            Book ranked = rankedFields(before);
+            Book after = patch.applyTo(before);
+            if (!delta.isEmpty()) afterCommit(() -> indexPut(ranked, after));
+            return after;
+        });
+    }
+
+    /**
+     * Applies one chunk of bulk rows in a single transaction. Rows with an {@code id} patch
+     * that book, the others create one. Patched rows are read with one plain JDBC query and
+     * written as batched UPDATEs of just their columns; created books are persisted and
+     * flushed as one insert batch. A patch that changes no value is reported as UNCHANGED and
+     * not written. An invalid row is reported, not applied, so it cannot roll back its
+     * neighbours.
+     */
+    @Transactional
+    public List<BulkRowResult> applyBulk(List<BulkRow> rows) {
+        List<Long> ids = new ArrayList<>();
+        for (BulkRow row : rows) {
+            if (row.patch().id() != null) ids.add(row.patch().id());
+        }
+        Map<Long, Book> current = new HashMap<>();
+        for (Book b : writer.load(ids)) current.put(b.getId(), b);
+
+        List<BulkRowResult> results = new ArrayList<>(rows.size());
+        List<BookPatch> updates = new ArrayList<>();
+        Map<Long, Book> before = new HashMap<>();
+        Map<Long, Book> touched = new LinkedHashMap<>();
+        for (BulkRow row : rows) {
+            BookPatch patch = row.patch();
+            Long id = patch.id();
+            String problem = patch.problem();
+            if (problem == null && id == null && !patch.has(BookPatch.TITLE)) problem = "title is required";
+            if (problem != null) {
+                results.add(BulkRowResult.rejected(row.line(), BulkRowResult.Status.INVALID, id, problem));
+                continue;
             }
-            if (patch.containsKey("description")) {
-                Object v = patch.get("description");
-                b.setDescription(v != null ? v.toString() : null);
+            if (id == null) {
+                Book b = patch.applyTo(new Book());
+                em.persist(b);
+                touched.put(b.getId(), b);
+                results.add(BulkRowResult.ok(row.line(), BulkRowResult.Status.CREATED, b.getId()));
+                continue;
             }
-            if (patch.containsKey("genre")) {
-                Object v = patch.get("genre");
-                b.setGenre(v != null ? v.toString() : null);
+            Book b = current.get(id);
+            if (b == null) {
+                results.add(BulkRowResult.rejected(row.line(), BulkRowResult.Status.NOT_FOUND, id, "no book with id " + id));
+                continue;
             }
-            if (patch.containsKey("price")) {
-                b.setPrice(asDouble(patch.get("price")));
+            // an id alone, or only the values the book already has: nothing to write or announce
+            if (patch.changes(b).isEmpty()) {
+                results.add(BulkRowResult.ok(row.line(), BulkRowResult.Status.UNCHANGED, id));
+                continue;
             }
-            if (patch.containsKey("averageRating")) {
-                b.setAverageRating(asDouble(patch.get("averageRating")));
+            before.computeIfAbsent(id, k -> rankedFields(b));
+            patch.applyTo(b);
+            touched.put(id, b);
+            updates.add(patch);
+            results.add(BulkRowResult.ok(row.line(), BulkRowResult.Status.UPDATED, id));
+        }
+        writer.patchAll(updates);
+        em.flush();
+        // with open-session-in-view the context outlives this chunk; don't let it grow per chunk
+        em.clear();
+        if (touched.isEmpty()) return results;
+        afterCommit(() -> {
+            for (Book b : touched.values()) {
+                searchIndex.put(b);
+                facetIndex.put(b);
             }
-            return repo.save(b);
+            // one coarse search-cache drop instead of a targeted eviction per row
+            cache.evictAll(before, touched);
+            touched.values().forEach(changes::upserted);
         });
+        return results;
     }
 
     @Transactional
     public boolean delete(Long id) {
-        if (!repo.existsById(id)) return false;
-        repo.deleteById(id);
+        Optional<Book> existing = repo.findById(id);
+        if (existing.isEmpty()) return false;
+        Book before = rankedFields(existing.get());
+        repo.delete(existing.get());
+        afterCommit(() -> indexRemove(before));
         return true;
     }
 
-    private static Double asDouble(Object o) {
-        if (o == null) return null;
-        if (o instanceof Number n) return n.doubleValue();
-        try { return Double.valueOf(o.toString()); } catch (Exception e) { return null; }
+    private void indexPut(Book before, Book book) {
+        searchIndex.put(book);
+        facetIndex.put(book);
+        cache.evict(before, book);
+        changes.upserted(book);
+    }
+
+    private void indexRemove(Book before) {
+        searchIndex.remove(before.getId());
+        facetIndex.remove(before.getId());
+        cache.evict(before, null);
+        changes.deleted(before.getId());
+    }
+
+    /** Copy of the fields cache invalidation compares, taken before an entity is modified. */
+    private static Book rankedFields(Book b) {
+        return Book.builder()
+                .id(b.getId())
+                .title(b.getTitle())
+                .author(b.getAuthor())
+                .averageRating(b.getAverageRating())
+                .build();
+    }
+
+    private static List<Book> first(List<Book> books, int limit) {
+        return books.size() > limit ? books.subList(0, limit) : books;
+    }
+
+    /** Loads books by id, keeping the order of {@code ids} and skipping unknown ones. */
+    private List<Book> byIds(List<Long> ids) {
+        if (ids.isEmpty()) return List.of();
+        return cache.books(ids, repo::findAllById);
+    }
+
+    /** Walks the whole catalogue in keyset pages so only one page is in memory at a time. */
+    private void forEachBook(Consumer<Book> action) {
+        Long after = 0L;
+        while (true) {
+            List<Book> page = repo.findByIdGreaterThanOrderByIdAsc(after, Limit.of(REINDEX_PAGE));
+            page.forEach(action);
+            if (page.size() < REINDEX_PAGE) return;
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    /** Derived in-memory state only follows committed data; outside a transaction it runs at once. */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 }
@@ -0,0 +1,7 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.BookPatch;
+
+/** One line of a bulk request: with an {@code id} it patches that book, without one it creates a book. */
+public record BulkRow(int line, BookPatch patch) {
+}
@@ -0,0 +1,16 @@
+package com.intellicart.bookservice.service;
+
+/** Outcome of one bulk line; {@code id} is the created or patched book, {@code error} why it was not applied. */
+public record BulkRowResult(int line, Status status, Long id, String error) {
+
+    /** UNCHANGED: the row named an existing book but set no field to a new value, so nothing was written. */
+    public enum Status { CREATED, UPDATED, UNCHANGED, NOT_FOUND, INVALID, FAILED }
+
+    static BulkRowResult ok(int line, Status status, Long id) {
+        return new BulkRowResult(line, status, id, null);
+    }
+
+    public static BulkRowResult rejected(int line, Status status, Long id, String error) {
+        return new BulkRowResult(line, status, id, error);
+    }
+}
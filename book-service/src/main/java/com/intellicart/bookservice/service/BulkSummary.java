@@ -0,0 +1,17 @@
+package com.intellicart.bookservice.service;
+
+import java.util.List;
+
+/** Totals of a bulk request plus the per-line results, in line order. */
+public record BulkSummary(int created, int updated, int unchanged, int failed, List<BulkRowResult> results) {
+
+    public static BulkSummary of(List<BulkRowResult> results) {
+        int created = 0, updated = 0, unchanged = 0;
+        for (BulkRowResult r : results) {
+            if (r.status() == BulkRowResult.Status.CREATED) created++;
+            else if (r.status() == BulkRowResult.Status.UPDATED) updated++;
+            else if (r.status() == BulkRowResult.Status.UNCHANGED) unchanged++;
+        }
+        return new BulkSummary(created, updated, unchanged, results.size() - created - updated - unchanged, results);
+    }
+}
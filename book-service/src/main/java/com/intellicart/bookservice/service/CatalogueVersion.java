@@ -0,0 +1,26 @@
+package com.intellicart.bookservice.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Sequence of the catalogue change feed, bumped by {@link BookChangeLog} for every committed
+ * write and every reindex. It starts at the boot time in milliseconds, so a consumer's
+ * position from an earlier run of the (in-memory) database is never taken for one in this
+ * run. Responses are tagged from their own rows instead (see {@code BookETags}): this counter
+ * is per node and moves on any write.
+ */
+@Component
+public class CatalogueVersion {
+
+    private final AtomicLong version = new AtomicLong(System.currentTimeMillis());
+
+    public long current() {
+        return version.get();
+    }
+
+    long bump() {
+        return version.incrementAndGet();
+    }
+}
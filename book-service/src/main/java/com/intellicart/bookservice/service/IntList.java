@@ -0,0 +1,51 @@
+package com.intellicart.bookservice.service;
+
+import java.util.Arrays;
+
+/** Growable list of primitive ints, used for index postings. Not thread-safe. */
+final class IntList {
+
+    private int[] values;
+    private int size;
+
+    IntList() {
+        this(4);
+    }
+
+    IntList(int capacity) {
+        this.values = new int[Math.max(1, capacity)];
+    }
+
+    void add(int v) {
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+        }
+        values[size++] = v;
+    }
+
+    int get(int i) {
+        return values[i];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    /** Rewrites every value through {@code mapping}, dropping the ones that map to -1. */
+    void remap(int[] mapping) {
+        int n = 0;
+        for (int i = 0; i < size; i++) {
+            int v = mapping[values[i]];
+            if (v >= 0) values[n++] = v;
+        }
+        size = n;
+    }
+}
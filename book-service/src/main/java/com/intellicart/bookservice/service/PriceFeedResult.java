@@ -0,0 +1,8 @@
+package com.intellicart.bookservice.service;
+
+/**
+ * Outcome of one price-feed run: data rows read, rows that set a book's price, rows whose
+ * key matched no book and rows without a usable key or price.
+ */
+public record PriceFeedResult(int rows, int updated, int unknown, int invalid) {
+}
@@ -0,0 +1,259 @@
+package com.intellicart.bookservice.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellicart.bookservice.bootstrap.CsvRecordReader;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Streams price feeds into the catalogue. A feed is CSV, with a header naming a price column
+ * and one of id, bookID or isbn, or NDJSON with the same keys per object; bookID and isbn
+ * are matched against the import's natural keys. Rows are written in JDBC batches, one
+ * transaction each, and every committed batch is pushed to the facet index, the book cache
+ * and the change feed straight away, so only one batch is ever held in memory.
+ */
+@Service
+public class PriceFeedService {
+
+    private static final Logger log = LoggerFactory.getLogger(PriceFeedService.class);
+
+    public enum Format {
+        CSV, NDJSON;
+
+        /** NDJSON for .ndjson/.jsonl files, CSV otherwise. */
+        static Format of(String filename) {
+            String f = filename.toLowerCase(Locale.ROOT);
+            return f.endsWith(".ndjson") || f.endsWith(".jsonl") ? NDJSON : CSV;
+        }
+    }
+
+    private final BookBatchWriter writer;
+    private final BookFacetIndex facetIndex;
+    private final BookCache cache;
+    private final BookChangeLog changes;
+    private final ResourceLoader resources;
+    private final ObjectMapper mapper;
+
+    /** Feed applied at startup and on the refresh cron; blank disables both. */
+    @Value("${app.books.prices.path:}")
+    private String pricePath;
+
+    @Value("${app.books.prices.batch-size:1000}")
+    private int batchSize;
+
+    public PriceFeedService(BookBatchWriter writer, BookFacetIndex facetIndex, BookCache cache,
+                            BookChangeLog changes, ResourceLoader resources, ObjectMapper mapper) {
+        this.writer = writer;
+        this.facetIndex = facetIndex;
+        this.cache = cache;
+        this.changes = changes;
+        this.resources = resources;
+        this.mapper = mapper;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadAtStartup() {
+        refresh();
+    }
+
+    /** Re-applies the configured feed, off unless app.books.prices.refresh-cron is set. */
+    @Scheduled(cron = "${app.books.prices.refresh-cron:-}")
+    public void refresh() {
+        if (pricePath == null || pricePath.isBlank()) return;
+        Resource res = resources.getResource(pricePath);
+        if (!res.exists()) {
+            log.warn("Price feed {} not found", pricePath);
+            return;
+        }
+        try (InputStream in = res.getInputStream()) {
+            long started = System.nanoTime();
+            PriceFeedResult r = ingest(in, Format.of(pricePath));
+            log.info("Applied price feed {}: {} rows, {} updated, {} unknown, {} invalid in {} ms", pricePath,
+                    r.rows(), r.updated(), r.unknown(), r.invalid(), (System.nanoTime() - started) / 1_000_000);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Could not apply price feed {}: {}", pricePath, e.getMessage());
+        }
+    }
+
+    /**
+     * Applies one feed, read incrementally from {@code in}. A CSV header without the needed
+     * columns fails with IllegalArgumentException and malformed JSON with a
+     * JsonProcessingException; batches committed before either stay applied.
+     */
+    public PriceFeedResult ingest(InputStream in, Format format) throws IOException {
+        Batch batch = new Batch(Math.max(1, batchSize));
+        if (format == Format.NDJSON) {
+            readNdjson(in, batch);
+        } else {
+            readCsv(in, batch);
+        }
+        batch.flush();
+        return new PriceFeedResult(batch.rows, batch.updated, batch.unknown, batch.invalid);
+    }
+
+    private void readCsv(InputStream in, Batch batch) throws IOException {
+        // same parser, header matching and quoting rules as the catalogue import
+        CsvRecordReader csv = CsvRecordReader.open(in, "id", "bookID", "isbn", "price");
+        if (csv == null) return;
+        if (!csv.has(3) || !(csv.has(0) || csv.has(1) || csv.has(2))) {
+            throw new IllegalArgumentException("price feed header needs a price column and one of id, bookID, isbn");
+        }
+        csv.forEach(f -> batch.add(f[0], f[1], f[2], f[3]));
+    }
+
+    private void readNdjson(InputStream in, Batch batch) throws IOException {
+        // one parser over the whole stream: NDJSON is a sequence of root-level objects
+        try (JsonParser p = mapper.getFactory().createParser(in)) {
+            for (JsonToken t = p.nextToken(); t != null; t = p.nextToken()) {
+                if (t != JsonToken.START_OBJECT) {
+                    throw new IllegalArgumentException("expected one JSON object per line near line "
+                            + p.currentLocation().getLineNr());
+                }
+                String id = null, bookId = null, isbn = null, price = null;
+                for (t = p.nextToken(); t == JsonToken.FIELD_NAME; t = p.nextToken()) {
+                    String name = p.currentName();
+                    JsonToken v = p.nextToken();
+                    if (!v.isScalarValue()) {
+                        p.skipChildren();
+                        continue;
+                    }
+                    String text = v == JsonToken.VALUE_NULL ? "" : p.getText();
+                    switch (name) {
+                        case "id" -> id = text;
+                        case "bookID", "bookId" -> bookId = text;
+                        case "isbn" -> isbn = text;
+                        case "price" -> price = text;
+                        default -> { }
+                    }
+                }
+                batch.add(id, bookId, isbn, price);
+            }
+        }
+    }
+
+    /**
+     * Rows buffered for the next JDBC batch plus the running totals. Rows keyed by bookID or
+     * isbn are resolved when the batch is flushed, with one lookup for the batch's keys.
+     */
+    private final class Batch {
+
+        final long[] ids;
+        final double[] prices;
+        final String[] keys;     // natural key per row, null when keyed by id
+        final String[] isbnKeys; // the "isbn:" key, tried when the bookID is blank or unknown
+        int n;
+        int rows, updated, unknown, invalid;
+
+        Batch(int size) {
+            ids = new long[size];
+            prices = new double[size];
+            keys = new String[size];
+            isbnKeys = new String[size];
+        }
+
+        /** Blank {@code price} clears the price; an explicit id takes precedence over the natural keys. */
+        void add(String id, String bookId, String isbn, String price) {
+            rows++;
+            double value = parsePrice(price);
+            if (value < 0) {
+                invalid++;
+                return;
+            }
+            if (notBlank(id)) {
+                try {
+                    ids[n] = Long.parseLong(id.trim());
+                } catch (NumberFormatException e) {
+                    invalid++;
+                    return;
+                }
+                keys[n] = null;
+                isbnKeys[n] = null;
+            } else if (notBlank(bookId) || notBlank(isbn)) {
+                // same natural key as the catalogue import: bookID, else "isbn:" + ISBN
+                keys[n] = notBlank(bookId) ? bookId.trim() : null;
+                isbnKeys[n] = notBlank(isbn) ? "isbn:" + isbn.trim() : null;
+            } else {
+                invalid++;
+                return;
+            }
+            prices[n] = value;
+            if (++n == ids.length) flush();
+        }
+
+        void flush() {
+            if (n == 0) return;
+            resolveNaturalKeys();
+            if (n > 0) {
+                int matched = writer.updatePrices(ids, prices, n);
+                // committed: publish to the readers
+                facetIndex.updatePrices(ids, prices, n);
+                cache.evictBooks(ids, n);
+                changes.pricesChanged();
+                updated += matched;
+                unknown += n - matched;
+            }
+            n = 0;
+        }
+
+        /** Replaces natural keys by book ids, dropping (and counting) the rows no book matches. */
+        private void resolveNaturalKeys() {
+            Set<String> wanted = new HashSet<>();
+            for (int i = 0; i < n; i++) {
+                if (keys[i] != null) wanted.add(keys[i]);
+                if (isbnKeys[i] != null) wanted.add(isbnKeys[i]);
+            }
+            if (wanted.isEmpty()) return;
+            Map<String, Long> found = writer.idsBySourceKey(wanted);
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (keys[i] != null || isbnKeys[i] != null) {
+                    Long book = keys[i] != null ? found.get(keys[i]) : null;
+                    if (book == null && isbnKeys[i] != null) book = found.get(isbnKeys[i]);
+                    if (book == null) {
+                        unknown++;
+                        continue;
+                    }
+                    ids[i] = book;
+                }
+                ids[kept] = ids[i];
+                prices[kept] = prices[i];
+                kept++;
+            }
+            n = kept;
+        }
+    }
+
+    /** The price, NaN for a blank one (no price) or -1 when it is not a valid price. */
+    private static double parsePrice(String s) {
+        if (s == null) return -1;
+        String t = s.trim();
+        if (t.isEmpty()) return Double.NaN;
+        try {
+            double v = Double.parseDouble(t);
+            return Double.isFinite(v) && v >= 0 ? v : -1;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static boolean notBlank(String s) {
+        return s != null && !s.isBlank();
+    }
+}
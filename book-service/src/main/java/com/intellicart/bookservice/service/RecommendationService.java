@@ -0,0 +1,165 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.infrastructure.BookRepository;
+import com.intellicart.bookservice.infrastructure.OrderHistoryClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Per-user book suggestions from a precomputed item-to-item co-purchase table. Two books
+ * are related when the same user has ordered both; a user's candidates are scored by how
+ * often they were co-purchased with anything the user already owns. Every user's top
+ * {@link #MAX_SUGGESTIONS} titles are computed at refresh time, so a request is a map
+ * lookup plus at most {@code limit} copies. Users without history, or with too few
+ * co-purchases, are topped up from the highest-rated books they do not own yet.
+ */
+@Service
+public class RecommendationService {
+
+    private static final Logger log = LoggerFactory.getLogger(RecommendationService.class);
+
+    public static final int MAX_SUGGESTIONS = 10;
+
+    /** Immutable result of one refresh; swapped in as a whole. */
+    private record Table(Map<Long, String[]> byUser, Map<Long, Set<Long>> owned,
+                         long[] popularIds, String[] popularTitles) {
+        static final Table EMPTY = new Table(Map.of(), Map.of(), new long[0], new String[0]);
+    }
+
+    private final BookRepository repo;
+    private final OrderHistoryClient orders;
+
+    private volatile Table table = Table.EMPTY;
+
+    public RecommendationService(BookRepository repo, OrderHistoryClient orders) {
+        this.repo = repo;
+        this.orders = orders;
+    }
+
+    /** Up to {@code limit} titles for {@code userId}; {@code null} means anonymous. */
+    public List<String> suggestionsFor(Long userId, int limit) {
+        Table t = table;
+        int k = Math.min(limit, MAX_SUGGESTIONS);
+        List<String> out = new ArrayList<>(k);
+        String[] personal = userId == null ? null : t.byUser().get(userId);
+        if (personal != null) {
+            for (int i = 0; i < personal.length && out.size() < k; i++) out.add(personal[i]);
+        }
+        if (out.size() < k) {
+            Set<Long> owned = userId == null ? Set.of() : t.owned().getOrDefault(userId, Set.of());
+            for (int i = 0; i < t.popularIds().length && out.size() < k; i++) {
+                String title = t.popularTitles()[i];
+                if (!owned.contains(t.popularIds()[i]) && !out.contains(title)) out.add(title);
+            }
+        }
+        return out;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        refresh();
+    }
+
+    /** Rebuilds the table from the current catalogue and order history. */
+    @Scheduled(fixedDelayString = "${app.books.suggestions.refresh-ms:600000}",
+            initialDelayString = "${app.books.suggestions.refresh-ms:600000}")
+    public void refresh() {
+        List<Book> top = repo.findTop100ByAverageRatingNotNullOrderByAverageRatingDescIdAsc();
+        long[] popularIds = new long[top.size()];
+        String[] popularTitles = new String[top.size()];
+        for (int i = 0; i < top.size(); i++) {
+            popularIds[i] = top.get(i).getId();
+            popularTitles[i] = top.get(i).getTitle();
+        }
+
+        Map<Long, Set<Long>> owned;
+        try {
+            owned = orders.booksByUser();
+        } catch (RuntimeException e) {
+            // order-service down: keep the last good personal lists, refresh popularity only
+            log.warn("Could not read order history, keeping previous suggestions: {}", e.getMessage());
+            Table previous = table;
+            table = new Table(previous.byUser(), previous.owned(), popularIds, popularTitles);
+            return;
+        }
+
+        Map<Long, Map<Long, Integer>> coPurchases = coPurchases(owned);
+        Map<Long, long[]> ranked = new HashMap<>();
+        Set<Long> wanted = new HashSet<>();
+        for (Map.Entry<Long, Set<Long>> user : owned.entrySet()) {
+            long[] ids = topCandidates(user.getValue(), coPurchases);
+            if (ids.length == 0) continue;
+            ranked.put(user.getKey(), ids);
+            for (long id : ids) wanted.add(id);
+        }
+
+        Map<Long, String> titles = new HashMap<>();
+        for (Book b : repo.findAllById(wanted)) titles.put(b.getId(), b.getTitle());
+        Map<Long, String[]> byUser = new HashMap<>();
+        ranked.forEach((user, ids) -> {
+            List<String> list = new ArrayList<>(ids.length);
+            for (long id : ids) {
+                String title = titles.get(id);
+                if (title != null) list.add(title);
+            }
+            if (!list.isEmpty()) byUser.put(user, list.toArray(String[]::new));
+        });
+
+        table = new Table(byUser, owned, popularIds, popularTitles);
+        log.info("Suggestions refreshed: {} users with history, {} personalised", owned.size(), byUser.size());
+    }
+
+    /** Symmetric book-to-book counts of users who ordered both. */
+    private static Map<Long, Map<Long, Integer>> coPurchases(Map<Long, Set<Long>> owned) {
+        Map<Long, Map<Long, Integer>> co = new HashMap<>();
+        for (Set<Long> books : owned.values()) {
+            if (books.size() < 2) continue;
+            for (Long a : books) {
+                Map<Long, Integer> row = co.computeIfAbsent(a, x -> new HashMap<>());
+                for (Long b : books) {
+                    if (!a.equals(b)) row.merge(b, 1, Integer::sum);
+                }
+            }
+        }
+        return co;
+    }
+
+    /** Best {@link #MAX_SUGGESTIONS} books not yet owned, by summed co-purchase count. */
+    private static long[] topCandidates(Set<Long> owned, Map<Long, Map<Long, Integer>> co) {
+        Map<Long, Integer> scores = new HashMap<>();
+        for (Long a : owned) {
+            Map<Long, Integer> row = co.get(a);
+            if (row == null) continue;
+            row.forEach((b, n) -> {
+                if (!owned.contains(b)) scores.merge(b, n, Integer::sum);
+            });
+        }
+        if (scores.isEmpty()) return new long[0];
+
+        // min-heap of the best so far: lowest score first, higher id first among equals
+        PriorityQueue<Map.Entry<Long, Integer>> best = new PriorityQueue<>(
+                MAX_SUGGESTIONS + 1,
+                Map.Entry.<Long, Integer>comparingByValue()
+                        .thenComparing(Map.Entry.<Long, Integer>comparingByKey().reversed()));
+        for (Map.Entry<Long, Integer> e : scores.entrySet()) {
+            best.add(e);
+            if (best.size() > MAX_SUGGESTIONS) best.poll();
+        }
+        long[] ids = new long[best.size()];
+        for (int i = ids.length - 1; i >= 0; i--) ids[i] = best.poll().getKey();
+        return ids;
+    }
+}
@@ -0,0 +1,156 @@
+package com.intellicart.bookservice.bootstrap;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.infrastructure.BookRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "app.books.import.enabled=false",
+        "app.orders.url=http://localhost:1",
+        "app.books.import.batch-size=1",
+        "spring.datasource.url=jdbc:h2:mem:snapshot-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+class CatalogueSnapshotTest {
+
+    // header: magic, version, fingerprint, row count, max id, then one offset per column
+    private static final int OFFSETS = 4 + 4 + 8 + 4 + 8;
+
+    @Autowired
+    private CatalogueSnapshot snapshot;
+
+    @Autowired
+    private BookRepository repo;
+
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @TempDir
+    Path dir;
+
+    @AfterEach
+    void emptyCatalogue() {
+        jdbc.update("DELETE FROM books");
+    }
+
+    @Test
+    void restoresEveryColumnAndMovesTheIdSequencePast() throws IOException {
+        // repeated, null and non-ASCII strings exercise each string encoding
+        List<Book> saved = new ArrayList<>(repo.saveAll(List.of(
+                book("Dune", "Frank Herbert", "sci-fi", 9.99, 4.25, "gr:1", 11L),
+                book("Dune Messiah", "Frank Herbert", "sci-fi", null, null, "gr:2", 12L),
+                book("Ōkami – Ein Märchen", null, null, 0.0, 3.0, null, null))));
+        saved.sort(Comparator.comparing(Book::getId));
+        Path file = dir.resolve("books.snapshot");
+        snapshot.write(file, 42L);
+        jdbc.update("DELETE FROM books");
+
+        assertTrue(snapshot.restore(file, 42L));
+
+        List<Book> restored = repo.findAll(Sort.by("id"));
+        assertEquals(saved.size(), restored.size());
+        for (int i = 0; i < saved.size(); i++) {
+            assertEquals(columns(saved.get(i)), columns(restored.get(i)));
+        }
+        Book next = repo.save(book("Children of Dune", "Frank Herbert", null, null, null, null, null));
+        assertTrue(next.getId() > saved.get(saved.size() - 1).getId());
+    }
+
+    @Test
+    void ignoresASnapshotOfAnotherFeed() throws IOException {
+        repo.save(book("Dune", "Frank Herbert", null, null, null, null, null));
+        Path file = dir.resolve("books.snapshot");
+        snapshot.write(file, 42L);
+        jdbc.update("DELETE FROM books");
+
+        assertFalse(snapshot.restore(file, 43L));
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void rejectsAColumnOffsetPastTheEndOfTheFile() throws IOException {
+        repo.save(book("Dune", "Frank Herbert", null, null, null, null, null));
+        Path file = dir.resolve("books.snapshot");
+        snapshot.write(file, 42L);
+        jdbc.update("DELETE FROM books");
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(8).putLong(0, Long.MAX_VALUE), OFFSETS + 8 * 4);
+        }
+
+        assertFalse(snapshot.restore(file, 42L));
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void leavesAPopulatedCatalogueAlone() throws IOException {
+        repo.save(book("Dune", "Frank Herbert", null, null, null, null, null));
+        Path file = dir.resolve("books.snapshot");
+        snapshot.write(file, 42L);
+        jdbc.update("DELETE FROM books");
+        Book created = repo.save(book("Kindred", "Octavia E. Butler", null, null, null, null, null));
+
+        assertFalse(snapshot.restore(file, 42L));
+        assertEquals(List.of(created.getId()), repo.findAll().stream().map(Book::getId).toList());
+    }
+
+    @Test
+    void aSnapshotFailingHalfWayRestoresNothing() throws IOException {
+        repo.saveAll(List.of(
+                book("Dune", "Frank Herbert", null, null, null, "gr:1", null),
+                book("Dune Messiah", "Frank Herbert", null, null, null, "gr:2", null)));
+        Path file = dir.resolve("books.snapshot");
+        snapshot.write(file, 42L);
+        jdbc.update("DELETE FROM books");
+        // cut into the last row's source key: the first row is inserted (batch size 1) before it fails
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(ch.size() - 2);
+        }
+
+        assertFalse(snapshot.restore(file, 42L));
+        assertEquals(0, repo.count());
+    }
+
+    @Test
+    void missingFileIsNotRestored() {
+        assertFalse(snapshot.restore(dir.resolve("absent.snapshot"), 42L));
+    }
+
+    private static Book book(String title, String author, String genre, Double price, Double rating,
+                             String sourceKey, Long contentHash) {
+        return Book.builder()
+                .title(title)
+                .author(author)
+                .genre(genre)
+                .price(price)
+                .averageRating(rating)
+                .sourceKey(sourceKey)
+                .contentHash(contentHash)
+                .description(genre == null ? null : title + ", " + genre)
+                .build();
+    }
+
+    private static List<Object> columns(Book b) {
+        return Arrays.asList(b.getId(), b.getTitle(), b.getAuthor(), b.getGenre(), b.getPrice(),
+                b.getAverageRating(), b.getSourceKey(), b.getContentHash(), b.getDescription(),
+                b.getTitleKey(), b.getAuthorKey());
+    }
+}
@@ -0,0 +1,78 @@
+package com.intellicart.bookservice.bootstrap;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CsvRecordReaderTest {
+
+    @Test
+    void matchesHeaderNamesAndReturnsFieldsInRequestedOrder() throws IOException {
+        CsvRecordReader csv = open("\uFEFFISBN,Price,book_id\r\n111,9.99,7\r\n222,,8\r\n", "bookID", "isbn", "price");
+
+        assertEquals(List.of("7|111|9.99", "8|222|"), read(csv));
+    }
+
+    @Test
+    void missingColumnsReadAsNull() throws IOException {
+        CsvRecordReader csv = open("id,price\n1,2.50\n", "id", "isbn", "price");
+
+        assertTrue(csv.has(0));
+        assertFalse(csv.has(1));
+        List<String[]> rows = new ArrayList<>();
+        csv.forEach(f -> rows.add(f.clone()));
+        assertEquals(1, rows.size());
+        assertNull(rows.get(0)[1]);
+        assertEquals("2.50", rows.get(0)[2]);
+    }
+
+    @Test
+    void quotedFieldsMayHoldDelimitersAndNewlinesAcrossBlocks() throws IOException {
+        StringBuilder body = new StringBuilder("id,title\n");
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            body.append(i).append(",\"Title, part ").append(i).append("\nsecond line\"\n");
+            expected.add(i + "|Title, part " + i + "\nsecond line");
+        }
+
+        assertEquals(expected, read(open(body.toString(), "id", "title")));
+    }
+
+    @Test
+    void detectsTabSeparatedFeeds() throws IOException {
+        assertEquals(List.of("5|3.00"), read(open("id\tprice\n5\t3.00", "id", "price")));
+    }
+
+    @Test
+    void emptyInputHasNoHeader() throws IOException {
+        assertNull(open("", "id"));
+    }
+
+    private static CsvRecordReader open(String text, String... names) throws IOException {
+        InputStream in = new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8));
+        return CsvRecordReader.open(in, names);
+    }
+
+    private static List<String> read(CsvRecordReader csv) throws IOException {
+        List<String> out = new ArrayList<>();
+        csv.forEach(f -> {
+            StringBuilder row = new StringBuilder();
+            for (String field : f) {
+                if (!row.isEmpty()) row.append('|');
+                if (field != null) row.append(field);
+            }
+            out.add(row.toString());
+        });
+        return out;
+    }
+}
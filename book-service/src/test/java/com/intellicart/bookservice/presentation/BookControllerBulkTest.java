@@ -0,0 +1,95 @@
+package com.intellicart.bookservice.presentation;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.service.BookService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.books.import.enabled=false",
+        "app.orders.url=http://localhost:1",
+        "spring.datasource.url=jdbc:h2:mem:controller-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class BookControllerBulkTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookService books;
+
+    @Test
+    void reportsEveryLineAndAppliesTheValidOnes() throws Exception {
+        Long id = books.create(Book.builder().title("Kindred").author("Octavia Butler").price(7.0).build()).getId();
+        String body = String.join("\n",
+                "{\"title\": \"Parable of the Sower\", \"author\": \"Octavia E. Butler\"}",
+                "{\"id\": " + id + ", \"author\": \"Octavia E. Butler\"}",
+                "",
+                "{\"id\": " + Long.MAX_VALUE + ", \"price\": 3}",
+                "{\"author\": \"nobody\"}",
+                "{\"id\": " + id + ", \"title\": \"\"}",
+                "{not json");
+
+        mvc.perform(post("/api/books/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.updated").value(1))
+                .andExpect(jsonPath("$.unchanged").value(0))
+                .andExpect(jsonPath("$.failed").value(4))
+                .andExpect(jsonPath("$.results[*].line", contains(1, 2, 4, 5, 6, 7)))
+                .andExpect(jsonPath("$.results[*].status",
+                        contains("CREATED", "UPDATED", "NOT_FOUND", "INVALID", "INVALID", "INVALID")));
+
+        mvc.perform(get("/api/books/{id}", id))
+                .andExpect(jsonPath("$.title").value("Kindred"))
+                .andExpect(jsonPath("$.author").value("Octavia E. Butler"))
+                .andExpect(jsonPath("$.price").value(7.0));
+    }
+
+    @Test
+    void rowsThatChangeNothingAreReportedUnchangedAndNotAnnounced() throws Exception {
+        Long id = books.create(Book.builder().title("Lilith's Brood").author("Octavia E. Butler").build()).getId();
+        long head = books.changesHead();
+        String body = String.join("\n",
+                "{\"id\": " + id + "}",
+                "{\"id\": " + id + ", \"title\": \"Lilith's Brood\"}");
+
+        mvc.perform(post("/api/books/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.updated").value(0))
+                .andExpect(jsonPath("$.unchanged").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[*].status", contains("UNCHANGED", "UNCHANGED")));
+
+        assertEquals(head, books.changesHead());
+    }
+
+    @Test
+    void bulkWritesReachTheSearchIndex() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 1_200; i++) {  // more than one chunk
+            body.append("{\"title\": \"Bulkloaded volume ").append(i).append("\"}\n");
+        }
+
+        mvc.perform(post("/api/books/bulk").contentType(MediaType.APPLICATION_NDJSON).content(body.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1_200))
+                .andExpect(jsonPath("$.failed").value(0));
+
+        mvc.perform(get("/api/books/search").param("q", "bulkloaded").param("limit", "100"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(100));
+    }
+}
@@ -0,0 +1,96 @@
+package com.intellicart.bookservice.presentation;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.books.import.enabled=false",
+        "app.orders.url=http://localhost:1",
+        "spring.datasource.url=jdbc:h2:mem:etag-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class BookControllerETagTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookService books;
+
+    private Long id;
+    private Long other;
+
+    @BeforeEach
+    void createBooks() {
+        id = books.create(Book.builder().title("Kindred").author("Octavia E. Butler").price(9.0).build()).getId();
+        other = books.create(Book.builder().title("Dawn").author("Octavia E. Butler").price(7.0).build()).getId();
+    }
+
+    @Test
+    void aMatchingTagIsAnsweredWithNotModified() throws Exception {
+        String tag = etag(id);
+
+        mvc.perform(get("/api/books/{id}", id).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, tag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    void writingAnotherBookKeepsTheTag() throws Exception {
+        String tag = etag(id);
+
+        mvc.perform(patch("/api/books/{id}", other).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 7.5}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/books/{id}", id).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void writingTheBookChangesTheTag() throws Exception {
+        String tag = etag(id);
+
+        mvc.perform(patch("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 10.0}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/books/{id}", id).header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isOk());
+        assertNotEquals(tag, etag(id));
+    }
+
+    @Test
+    void pagesKeepTheirCursorOnNotModified() throws Exception {
+        String tag = mvc.perform(get("/api/books").param("after", String.valueOf(id - 1)).param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mvc.perform(get("/api/books").param("after", String.valueOf(id - 1)).param("limit", "1")
+                        .header(HttpHeaders.IF_NONE_MATCH, tag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(BookController.NEXT_AFTER, String.valueOf(id)));
+    }
+
+    private String etag(Long bookId) throws Exception {
+        return mvc.perform(get("/api/books/{id}", bookId))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
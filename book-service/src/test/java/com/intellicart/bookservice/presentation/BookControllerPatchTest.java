@@ -0,0 +1,106 @@
+package com.intellicart.bookservice.presentation;
+
+import com.intellicart.bookservice.domain.Book;
+import com.intellicart.bookservice.service.BookService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.nullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.books.import.enabled=false",
+        "app.orders.url=http://localhost:1",
+        "spring.datasource.url=jdbc:h2:mem:controller-test;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"
+})
+@AutoConfigureMockMvc
+class BookControllerPatchTest {
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private BookService books;
+
+    private Long id;
+
+    @BeforeEach
+    void createBook() {
+        id = books.create(Book.builder()
+                .title("The Left Hand of Darkness")
+                .author("Ursula K. Le Guin")
+                .genre("sci-fi")
+                .price(8.5)
+                .averageRating(4.1)
+                .build()).getId();
+    }
+
+    @Test
+    void putWritesOnlyThePresentFieldsAndReturnsTheBook() throws Exception {
+        mvc.perform(put("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 12.25, \"genre\": null}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.title").value("The Left Hand of Darkness"))
+                .andExpect(jsonPath("$.author").value("Ursula K. Le Guin"))
+                .andExpect(jsonPath("$.price").value(12.25))
+                .andExpect(jsonPath("$.genre").value(nullValue()))
+                .andExpect(jsonPath("$.averageRating").value(4.1));
+
+        mvc.perform(get("/api/books/{id}", id))
+                .andExpect(jsonPath("$.price").value(12.25))
+                .andExpect(jsonPath("$.genre").value(nullValue()));
+    }
+
+    @Test
+    void patchRepliesWithTheChangedFieldsOnly() throws Exception {
+        mvc.perform(patch("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"The Left Hand of Darkness\", \"averageRating\": 4.5}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(id))
+                .andExpect(jsonPath("$.averageRating").value(4.5))
+                .andExpect(jsonPath("$.title").doesNotExist())
+                .andExpect(jsonPath("$.price").doesNotExist());
+    }
+
+    @Test
+    void renamedTitleIsSearchableAfterThePatch() throws Exception {
+        mvc.perform(patch("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"Winter Ambassador\"}"))
+                .andExpect(status().isOk());
+
+        mvc.perform(get("/api/books/search").param("q", "ambassador"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains(id.intValue())));
+    }
+
+    @Test
+    void blankTitleIsABadRequest() throws Exception {
+        mvc.perform(put("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": \"  \"}"))
+                .andExpect(status().isBadRequest());
+        mvc.perform(patch("/api/books/{id}", id).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"title\": null}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void unknownBookIsNotFound() throws Exception {
+        mvc.perform(put("/api/books/{id}", Long.MAX_VALUE).contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"price\": 1}"))
+                .andExpect(status().isNotFound());
+        mvc.perform(patch("/api/books/{id}", Long.MAX_VALUE).contentType(MediaType.APPLICATION_JSON)
+                        .content("{}"))
+                .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,165 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class BookCacheTest {
+
+    private static final BookSearchIndex.Sort RELEVANCE = BookSearchIndex.Sort.RELEVANCE;
+
+    private final BookCache cache = new BookCache(new SimpleMeterRegistry(), 1_000, Duration.ofMinutes(10));
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    void searchesAreKeyedByTheirDistinctTerms() {
+        search("Harry potter", false);
+        search("POTTER harry harry", false);
+
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void aWriteDropsOnlyTheSearchesItCouldChange() {
+        search("dun", false);
+        search("hyperion", false);
+        search("simmons", false);
+        search("hyperoin", true);
+        loads.set(0);
+
+        cache.evict(null, book(9L, "Dune Messiah", "Frank Herbert", 4.0));
+
+        search("dun", false);
+        search("hyperion", false);
+        search("simmons", false);
+        search("hyperoin", true);
+        assertEquals(1, loads.get());
+
+        cache.evict(null, book(10L, "Hyperion", "Dan Simmons", 4.2));
+        search("hyperion", false);
+        search("simmons", false);
+        search("hyperoin", true);
+        assertEquals(4, loads.get());
+    }
+
+    @Test
+    void theOldVersionOfARenamedBookCountsToo() {
+        search("dune", false);
+        loads.set(0);
+
+        cache.evict(book(9L, "Dune", "Frank Herbert", 4.0), book(9L, "Arrakis", "Frank Herbert", 4.0));
+
+        search("dune", false);
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void writesThatDoNotChangeRankingKeepTheSearches() {
+        search("dune", false);
+        loads.set(0);
+
+        Book before = book(9L, "Dune", "Frank Herbert", 4.0);
+        Book after = book(9L, "Dune", "Frank Herbert", 4.0);
+        after.setPrice(12.0);
+        cache.evict(before, after);
+
+        search("dune", false);
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    void multiRowWritesDropEverySearch() {
+        search("dune", false);
+        search("hyperion", true);
+        loads.set(0);
+
+        cache.evictAll(Map.of(), Map.of(11L, book(11L, "Ilium", "Dan Simmons", 3.9)));
+
+        search("dune", false);
+        search("hyperion", true);
+        assertEquals(2, loads.get());
+        // and the key index was pruned, so a targeted eviction still works afterwards
+        cache.evict(null, book(12L, "Dune Messiah", "Frank Herbert", 4.0));
+        search("dune", false);
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void evictDropsTheCachedBook() {
+        AtomicInteger reads = new AtomicInteger();
+        Book dune = book(9L, "Dune", "Frank Herbert", 4.0);
+        cache.book(9L, id -> {
+            reads.incrementAndGet();
+            return Optional.of(dune);
+        });
+
+        cache.evict(dune, dune);
+        cache.book(9L, id -> {
+            reads.incrementAndGet();
+            return Optional.of(dune);
+        });
+
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    void aMultiGetThatRacedAWriteDoesNotRecacheTheOldRow() {
+        Book old = book(9L, "Dune", "Frank Herbert", 4.0);
+        Book renamed = book(9L, "Dune Messiah", "Frank Herbert", 4.0);
+
+        // the write commits and evicts while the multi-get is still loading the old row
+        List<Book> first = cache.books(List.of(9L), ids -> {
+            cache.evict(old, renamed);
+            return List.of(old);
+        });
+        List<Book> second = cache.books(List.of(9L), ids -> List.of(renamed));
+
+        assertEquals("Dune", first.get(0).getTitle());
+        assertEquals("Dune Messiah", second.get(0).getTitle());
+    }
+
+    @Test
+    void aTitleLookupThatRacedAWriteDoesNotRecacheTheOldRow() {
+        Book old = book(9L, "Dune", "Frank Herbert", 4.0);
+        Book repriced = book(9L, "Dune", "Frank Herbert", 4.0);
+        repriced.setPrice(12.0);
+
+        // a price-feed run reprices the book while the title lookup is loading it
+        cache.byTitle("Dune", t -> {
+            cache.evictBooks(new long[] {9L}, 1);
+            return Optional.of(old);
+        }, id -> Optional.of(repriced));
+        Optional<Book> again = cache.byTitle("Dune", t -> Optional.of(repriced), id -> Optional.of(repriced));
+
+        assertEquals(12.0, again.orElseThrow().getPrice());
+    }
+
+    @Test
+    void aMultiGetWithNoWriteInBetweenIsCached() {
+        cache.books(List.of(9L), ids -> List.of(book(9L, "Dune", "Frank Herbert", 4.0)));
+        List<Book> again = cache.books(List.of(9L), ids -> {
+            throw new AssertionError("should have been cached");
+        });
+
+        assertEquals(1, again.size());
+    }
+
+    private void search(String q, boolean fuzzy) {
+        cache.search(q, fuzzy, 10, RELEVANCE, () -> {
+            loads.incrementAndGet();
+            return List.of();
+        });
+    }
+
+    private static Book book(Long id, String title, String author, Double rating) {
+        return Book.builder().id(id).title(title).author(author).averageRating(rating).build();
+    }
+}
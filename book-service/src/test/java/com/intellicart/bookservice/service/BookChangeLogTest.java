@@ -0,0 +1,54 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookChangeLogTest {
+
+    private final CatalogueVersion version = new CatalogueVersion();
+    private final BookChangeLog log = new BookChangeLog(version, 3);
+
+    @Test
+    void entriesKeepTheBookAsItWasWhenAppended() {
+        long since = log.latest();
+        Book book = Book.builder().id(7L).title("Kindred").author("Octavia E. Butler").price(9.0).build();
+        log.upserted(book);
+
+        // the entity lives on in the cache and in later writes
+        book.setTitle("Dawn");
+        book.setPrice(7.0);
+
+        BookChange.Snapshot logged = log.read(since, 10).changes().get(0).book();
+        assertEquals("Kindred", logged.title());
+        assertEquals(9.0, logged.price());
+    }
+
+    @Test
+    void sequencesAreContiguousFromTheHead() {
+        long since = log.latest();
+        log.upserted(Book.builder().id(1L).title("A").build());
+        log.deleted(2L);
+
+        BookChanges changes = log.read(since, 10);
+        assertFalse(changes.reset());
+        assertEquals(List.of(since + 1, since + 2), changes.changes().stream().map(BookChange::seq).toList());
+        assertEquals(since + 2, changes.latest());
+        assertEquals(log.latest(), changes.latest());
+    }
+
+    @Test
+    void readersBehindTheRingAreToldToReset() {
+        long since = log.latest();
+        for (long id = 1; id <= 4; id++) log.deleted(id);
+
+        BookChanges changes = log.read(since, 10);
+        assertTrue(changes.reset());
+        assertEquals(log.latest(), changes.latest());
+    }
+}
@@ -0,0 +1,145 @@
+package com.intellicart.bookservice.service;
+
+import com.intellicart.bookservice.domain.Book;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BookSearchIndexTest {
+
+    private static final BookSearchIndex.Sort RELEVANCE = BookSearchIndex.Sort.RELEVANCE;
+
+    private final BookSearchIndex index = new BookSearchIndex();
+
+    @Test
+    void everyTermMustPrefixATitleOrAuthorWord() {
+        index.rebuild(add -> {
+            add.accept(book(1L, "The Dispossessed", "Ursula K. Le Guin"));
+            add.accept(book(2L, "The Lathe of Heaven", "Ursula K. Le Guin"));
+            add.accept(book(3L, "Dispatches", "Michael Herr"));
+        });
+
+        assertTrue(index.isReady());
+        assertEquals(List.of(1L), index.search("dispo guin", 10, RELEVANCE));
+        assertEquals(List.of(1L, 2L), sorted(index.search("ursula", 10, RELEVANCE)));
+        assertEquals(List.of(), index.search("heaven herr", 10, RELEVANCE));
+    }
+
+    @Test
+    void putsAndRemovesAreVisibleAtOnce() {
+        index.rebuild(add -> add.accept(book(1L, "Dune", "Frank Herbert")));
+
+        index.put(book(1L, "Dune Messiah", "Frank Herbert"));
+        index.put(book(2L, "Hyperion", "Dan Simmons"));
+        index.remove(2L);
+
+        assertEquals(List.of(1L), index.search("messiah", 10, RELEVANCE));
+        assertEquals(List.of(), index.search("hyperion", 10, RELEVANCE));
+    }
+
+    @Test
+    void rebuildKeepsServingTheOldIndexUntilTheNewOneIsSwappedIn() throws Exception {
+        index.rebuild(add -> add.accept(book(1L, "Dune", "Frank Herbert")));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch finish = new CountDownLatch(1);
+
+        CompletableFuture<Void> rebuild = CompletableFuture.runAsync(() -> index.rebuild(add -> {
+            add.accept(book(1L, "Dune", "Frank Herbert"));
+            add.accept(book(2L, "Hyperion", "Dan Simmons"));
+            reading.countDown();
+            await(finish);
+        }));
+        assertTrue(reading.await(5, TimeUnit.SECONDS));
+
+        // the source is still being read: no lock is held, the old contents answer
+        assertEquals(List.of(1L), index.search("dune", 10, RELEVANCE));
+        assertEquals(List.of(), index.search("hyperion", 10, RELEVANCE));
+        // writes meanwhile land in the old index and are replayed onto the new one
+        index.put(book(3L, "Ilium", "Dan Simmons"));
+        index.remove(1L);
+        assertEquals(List.of(3L), index.search("ilium", 10, RELEVANCE));
+
+        finish.countDown();
+        rebuild.get(5, TimeUnit.SECONDS);
+
+        assertEquals(List.of(2L), index.search("hyperion", 10, RELEVANCE));
+        assertEquals(List.of(3L), index.search("ilium", 10, RELEVANCE));
+        assertEquals(List.of(), index.search("dune", 10, RELEVANCE));
+    }
+
+    @Test
+    void failedRebuildLeavesTheIndexAsItWas() {
+        index.rebuild(add -> add.accept(book(1L, "Dune", "Frank Herbert")));
+
+        try {
+            index.rebuild(add -> {
+                add.accept(book(2L, "Hyperion", "Dan Simmons"));
+                throw new IllegalStateException("database went away");
+            });
+        } catch (IllegalStateException expected) {
+            // the old contents must survive
+        }
+        index.put(book(3L, "Ilium", "Dan Simmons"));
+
+        assertEquals(List.of(1L), index.search("dune", 10, RELEVANCE));
+        assertEquals(List.of(), index.search("hyperion", 10, RELEVANCE));
+        assertEquals(List.of(3L), index.search("ilium", 10, RELEVANCE));
+    }
+
+    @Test
+    void fuzzyLookupToleratesTyposAndRanksCloserTitlesFirst() {
+        index.rebuild(add -> {
+            add.accept(book(1L, "Hyperion Cantos Omnibus Edition", "Dan Simmons"));
+            add.accept(book(2L, "Hyperion", "Dan Simmons"));
+            add.accept(book(3L, "Dune", "Frank Herbert"));
+        });
+
+        assertEquals(List.of(2L, 1L), index.fuzzy("hyperoin", 10, RELEVANCE));
+        assertEquals(List.of(3L), index.fuzzy("herbret", 10, RELEVANCE));
+        assertEquals(List.of(), index.fuzzy("zzzz", 10, RELEVANCE));
+    }
+
+    @Test
+    void repeatedFuzzyQueriesGiveTheSameAnswer() {
+        index.rebuild(add -> {
+            for (long i = 1; i <= 3_000; i++) add.accept(book(i, "Volume " + i, "Anonymous"));
+            add.accept(book(5_000L, "Hyperion", "Dan Simmons"));
+        });
+
+        // hit counters are reused between queries on a thread and must start from zero each time
+        List<Long> first = index.fuzzy("volume 12", 5, RELEVANCE);
+        for (int i = 0; i < 5; i++) {
+            assertEquals(List.of(5_000L), index.fuzzy("hyperoin", 5, RELEVANCE));
+            assertEquals(first, index.fuzzy("volume 12", 5, RELEVANCE));
+        }
+        assertEquals(12L, (long) first.get(0));
+    }
+
+    @Test
+    void notReadyBeforeTheFirstBuild() {
+        assertFalse(index.isReady());
+    }
+
+    static Book book(Long id, String title, String author) {
+        return Book.builder().id(id).title(title).author(author).build();
+    }
+
+    private static List<Long> sorted(List<Long> ids) {
+        return ids.stream().sorted().toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.intellicart.bookservice.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.intellicart.bookservice.infrastructure.BookBatchWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PriceFeedServiceTest {
+
+    private final FakeWriter writer = new FakeWriter();
+    private final PriceFeedService feed = new PriceFeedService(writer, new BookFacetIndex(),
+            new BookCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(1)),
+            new BookChangeLog(new CatalogueVersion(), 100), null, new ObjectMapper());
+
+    PriceFeedServiceTest() {
+        ReflectionTestUtils.setField(feed, "batchSize", 2);
+        writer.sourceKeys.put("101", 1L);
+        writer.sourceKeys.put("102", 2L);
+        writer.sourceKeys.put("isbn:9780441013593", 3L);
+    }
+
+    @Test
+    void naturalKeysAreLookedUpOneBatchAtATime() throws Exception {
+        PriceFeedResult r = ingest("""
+                bookID,isbn,price
+                101,,9.99
+                102,,12.50
+                999,9780441013593,7.25
+                """);
+
+        assertEquals(List.of(Set.of("101", "102"), Set.of("999", "isbn:9780441013593")), writer.lookups);
+        assertEquals(Map.of(1L, 9.99, 2L, 12.5, 3L, 7.25), writer.prices);
+        assertEquals(3, r.updated());
+        assertEquals(0, r.unknown());
+    }
+
+    @Test
+    void unknownKeysAreCountedAndIdsNeedNoLookup() throws Exception {
+        PriceFeedResult r = ingest("""
+                id,bookID,price
+                2,,4.00
+                ,555,5.00
+                ,101,abc
+                """);
+
+        assertEquals(List.of(Set.of("555")), writer.lookups);
+        assertEquals(Map.of(2L, 4.0), writer.prices);
+        assertEquals(3, r.rows());
+        assertEquals(1, r.updated());
+        assertEquals(1, r.unknown());
+        assertEquals(1, r.invalid());
+    }
+
+    private PriceFeedResult ingest(String csv) throws Exception {
+        return feed.ingest(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), PriceFeedService.Format.CSV);
+    }
+
+    /** Source keys and prices in maps; records each key lookup. */
+    private static final class FakeWriter extends BookBatchWriter {
+        final Map<String, Long> sourceKeys = new HashMap<>();
+        final List<Set<String>> lookups = new ArrayList<>();
+        final Map<Long, Double> prices = new HashMap<>();
+
+        FakeWriter() {
+            super(null);
+        }
+
+        @Override
+        public Map<String, Long> idsBySourceKey(Collection<String> keys) {
+            lookups.add(Set.copyOf(keys));
+            Map<String, Long> out = new HashMap<>();
+            for (String k : keys) {
+                if (sourceKeys.containsKey(k)) out.put(k, sourceKeys.get(k));
+            }
+            return out;
+        }
+
+        @Override
+        public int updatePrices(long[] ids, double[] values, int n) {
+            for (int i = 0; i < n; i++) prices.put(ids[i], values[i]);
+            return n;
+        }
+    }
+}
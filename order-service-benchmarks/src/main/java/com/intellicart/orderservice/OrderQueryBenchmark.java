@@ -0,0 +1,173 @@
+package com.intellicart.orderservice;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import com.intellicart.orderservice.infrastructure.OrderRepository;
+import com.intellicart.orderservice.service.OrderService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order read paths as the controller runs them: load, then serialize every order with
+ * its items. Each call counts the JDBC statements it prepared (Hibernate statistics); the
+ * count is printed for each order volume at setup and any call over its bound fails the
+ * run, so an N+1 regression cannot hide behind a timing. A page is one id query plus one
+ * graph fetch; the NDJSON export is that per {@link #EXPORT_PAGE} orders, whatever the volume.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderQueryBenchmark {
+
+    /** Ids, then orders plus items in one query; no per-order SELECT. */
+    private static final int PAGE_STATEMENTS = 2;
+    private static final int PAGE_SIZE = 100;
+    /** Matches OrderService's export page. */
+    private static final int EXPORT_PAGE = 500;
+    private static final int USERS = 50;
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Param({"100", "1000", "10000"})
+    public int orders;
+
+    private ConfigurableApplicationContext context;
+    private OrderService service;
+    private ObjectMapper mapper;
+    private Statistics statistics;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench" + orders + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=true",
+                        // keep the sample rows out so the order and item counts are exactly the generated ones
+                        "spring.jpa.properties.hibernate.hbm2ddl.import_files=",
+                        "logging.level.root=WARN")
+                .run();
+        service = context.getBean(OrderService.class);
+        mapper = context.getBean(ObjectMapper.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+
+        List<CustomerOrder> seed = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            CustomerOrder o = new CustomerOrder();
+            o.setUserId((long) (i % USERS) + 1);
+            for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+                OrderItem item = new OrderItem();
+                item.setBookId((long) (i * ITEMS_PER_ORDER + j) % 10_000 + 1);
+                item.setQuantity(1 + j);
+                item.setPrice(BigDecimal.valueOf(999 + j * 100L, 2));
+                o.addItem(item);
+            }
+            seed.add(o);
+        }
+        context.getBean(OrderRepository.class).saveAll(seed);
+
+        System.out.printf("%n%d orders: firstPage %d, exportAll %d, findOrdersByUserId %d, summarize %d statement(s)%n",
+                orders, statements(this::firstPage), statements(this::allOrders), statements(this::ordersOfOneUser),
+                statements(this::summaryOfOneUser));
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] firstPage() throws Exception {
+        return checked(this::firstPage, PAGE_STATEMENTS);
+    }
+
+    @Benchmark
+    public byte[] exportAll() throws Exception {
+        // one extra id query when the last page is exactly full
+        return checked(this::allOrders, PAGE_STATEMENTS * (orders / EXPORT_PAGE + 1));
+    }
+
+    @Benchmark
+    public byte[] findOrdersByUserId() throws Exception {
+        return checked(this::ordersOfOneUser, 1);
+    }
+
+    /** Count, spend and latest order from the aggregate, next to loading the same user's orders above. */
+    @Benchmark
+    public byte[] summarize() throws Exception {
+        return checked(this::summaryOfOneUser, 1);
+    }
+
+    private byte[] firstPage() throws Exception {
+        return mapper.writeValueAsBytes(service.page(null, PAGE_SIZE));
+    }
+
+    /** The NDJSON export: every order, one line each. */
+    private byte[] allOrders() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ObjectWriter writer = mapper.writerFor(CustomerOrder.class);
+        service.forEachOrder(o -> {
+            try {
+                out.write(writer.writeValueAsBytes(o));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return out.toByteArray();
+    }
+
+    private byte[] ordersOfOneUser() throws Exception {
+        return mapper.writeValueAsBytes(service.findOrdersByUserId(1L));
+    }
+
+    private byte[] summaryOfOneUser() throws Exception {
+        return mapper.writeValueAsBytes(service.summarize(1L));
+    }
+
+    private byte[] checked(Callable<byte[]> call, int maxStatements) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        byte[] body = call.call();
+        long used = statistics.getPrepareStatementCount() - before;
+        if (used > maxStatements) {
+            throw new IllegalStateException(used + " statements for " + orders + " orders; expected at most "
+                    + maxStatements);
+        }
+        return body;
+    }
+
+    private long statements(Callable<byte[]> call) throws Exception {
+        long before = statistics.getPrepareStatementCount();
+        call.call();
+        return statistics.getPrepareStatementCount() - before;
+    }
+}
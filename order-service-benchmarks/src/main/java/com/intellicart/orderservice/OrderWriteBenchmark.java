@@ -0,0 +1,82 @@
+package com.intellicart.orderservice;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import com.intellicart.orderservice.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order creation under a checkout spike: 16 threads creating priced three-item orders.
+ * A {@code 0ms} window writes every order in its caller's own transaction, the baseline;
+ * a {@code 2ms} window coalesces the concurrent creates into group commits.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+public class OrderWriteBenchmark {
+
+    private static final int ITEMS_PER_ORDER = 3;
+
+    @Param({"0ms", "2ms"})
+    public String window;
+
+    private ConfigurableApplicationContext context;
+    private OrderService service;
+
+    @Setup
+    public void setUp() {
+        context = new SpringApplicationBuilder(OrderServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:write" + window + ";DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.hbm2ddl.import_files=",
+                        "app.orders.group-commit.window=" + window,
+                        "logging.level.root=WARN")
+                .run();
+        service = context.getBean(OrderService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Long createOrder() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        CustomerOrder o = new CustomerOrder();
+        o.setUserId(random.nextLong(1, 51));
+        for (int j = 0; j < ITEMS_PER_ORDER; j++) {
+            OrderItem item = new OrderItem();
+            item.setBookId(random.nextLong(1, 10_001));
+            item.setQuantity(1 + j);
+            // priced, so no book-service lookup is involved
+            item.setPrice(BigDecimal.valueOf(999 + j * 100L, 2));
+            o.addItem(item);
+        }
+        return service.createOrder(o).getId();
+    }
+}
@@ -1,17 +1,25 @@
 package com.intellicart.orderservice.domain;
 
 import com.fasterxml.jackson.annotation.JsonManagedReference;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "customer_order")   // 👈 matches import.sql
+@Table(name = "customer_order",   // 👈 matches import.sql
+        // per-user lookups and the summary aggregate; id last so the user's latest order is the index tail
+        indexes = @Index(name = "idx_customer_order_user_id", columnList = "user_id, id"))
 public class CustomerOrder {
 
+    public static final String ID_SEQUENCE = "customer_order_seq";
+
+    // sequence ids (not IDENTITY) let Hibernate batch the inserts; the first value clears the import.sql rows
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, initialValue = 1000, allocationSize = 100)
     private Long id;
 
     @Column(name = "user_id")
@@ -20,6 +28,10 @@ public class CustomerOrder {
     @Column(name = "total_amount", precision = 10, scale = 2)
     private BigDecimal totalAmount = BigDecimal.ZERO;
 
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
     @OneToMany(
             mappedBy = "order",
             cascade = CascadeType.ALL,
@@ -29,6 +41,11 @@ public class CustomerOrder {
     @JsonManagedReference
     private List<OrderItem> items = new ArrayList<>();
 
+    @PrePersist
+    void stampCreatedAt() {
+        if (createdAt == null) createdAt = Instant.now();
+    }
+
     // --- helpers to keep both sides in sync ---
     public void addItem(OrderItem item) {
         items.add(item);
@@ -62,6 +79,9 @@ public class CustomerOrder {
     public BigDecimal getTotalAmount() { return totalAmount; }
     public void setTotalAmount(BigDecimal totalAmount) { this.totalAmount = totalAmount; }
 
+    public Instant getCreatedAt() { return createdAt; }
+    public void setCreatedAt(Instant createdAt) { this.createdAt = createdAt; }
+
     public List<OrderItem> getItems() { return items; }
     public void setItems(List<OrderItem> items) {
         this.items.clear();
@@ -8,8 +8,11 @@ import java.math.BigDecimal;
 @Table(name = "order_item")   // 👈 matches import.sql
 public class OrderItem {
 
+    public static final String ID_SEQUENCE = "order_item_seq";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, initialValue = 10000, allocationSize = 100)
     private Long id;
 
     @Column(name = "book_id")
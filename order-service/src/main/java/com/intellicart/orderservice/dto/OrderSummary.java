@@ -0,0 +1,17 @@
+package com.intellicart.orderservice.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/** A user's order count, total spend and most recent order, computed in one query. */
+public record OrderSummary(
+        Long userId,
+        Long orderCount,
+        BigDecimal totalSpend,
+        Long latestOrderId,
+        Instant latestOrderAt
+) {
+    public static OrderSummary empty(Long userId) {
+        return new OrderSummary(userId, 0L, BigDecimal.ZERO, null, null);
+    }
+}
@@ -0,0 +1,50 @@
+package com.intellicart.orderservice.infrastructure;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+/** Current book prices from book-service's bulk price lookup. */
+@Component
+public class BookPriceClient {
+
+    private static final Logger log = LoggerFactory.getLogger(BookPriceClient.class);
+
+    private static final ParameterizedTypeReference<Map<Long, Double>> PRICES = new ParameterizedTypeReference<>() {};
+
+    private final RestTemplate rest;
+    private final String booksUrl;
+
+    public BookPriceClient(RestTemplateBuilder builder,
+                           @Value("${app.books.url:http://localhost:8080}") String booksUrl) {
+        this.rest = builder
+                .setConnectTimeout(Duration.ofSeconds(2))
+                .setReadTimeout(Duration.ofSeconds(5))
+                .build();
+        this.booksUrl = booksUrl;
+    }
+
+    /** Id to price in one call; unpriced books are missing, as is everything when book-service is down. */
+    public Map<Long, Double> prices(Collection<Long> bookIds) {
+        if (bookIds.isEmpty()) return Map.of();
+        try {
+            Map<Long, Double> prices = rest.exchange(booksUrl + "/api/books/prices/lookup", HttpMethod.POST,
+                    new HttpEntity<>(bookIds), PRICES).getBody();
+            return prices != null ? prices : Map.of();
+        } catch (RestClientException e) {
+            log.warn("Book price lookup failed: {}", e.getMessage());
+            return Map.of();
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.intellicart.orderservice.infrastructure;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Inserts a group of new orders, items cascaded, in one transaction. Ids come from pooled
+ * sequences, so Hibernate groups the order rows and the item rows into JDBC batches
+ * ({@code hibernate.jdbc.batch_size}) instead of one round trip per row.
+ */
+@Component
+public class OrderBatchWriter {
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Transactional
+    public void insert(List<CustomerOrder> orders) {
+        for (CustomerOrder o : orders) {
+            em.persist(o);
+        }
+        em.flush();
+    }
+}
@@ -1,12 +1,44 @@
 package com.intellicart.orderservice.infrastructure;
 
 import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.dto.OrderSummary;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<CustomerOrder, Long> {
 
+    // the read paths serialize every order's items, so they load them in the same query
+    // (a left join through the entity graph) instead of one lazy SELECT per order
+
+    /** Keyset page of order ids; paging ids rather than the item join keeps the limit exact. */
+    @Query("select o.id from CustomerOrder o where o.id > :after order by o.id")
+    List<Long> findIdsAfter(@Param("after") long after, Pageable page);
+
+    @EntityGraph(attributePaths = "items")
+    @Query("select o from CustomerOrder o where o.id in :ids order by o.id")
+    List<CustomerOrder> findWithItemsByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "items")
     List<CustomerOrder> findByUserId(Long userId);
-}
\ No newline at end of file
+
+    /**
+     * Aggregated over the user_id index; empty when the user has no orders. The latest
+     * order's time is read from that order's row (a seek on (user_id, id) and the primary
+     * key), not as an independent max over created_at.
+     */
+    @Query("""
+            select new com.intellicart.orderservice.dto.OrderSummary(
+                o.userId, count(o), sum(o.totalAmount), max(o.id),
+                (select l.createdAt from CustomerOrder l where l.id =
+                    (select max(m.id) from CustomerOrder m where m.userId = :userId)))
+            from CustomerOrder o where o.userId = :userId group by o.userId""")
+    Optional<OrderSummary> summarize(@Param("userId") Long userId);
+}
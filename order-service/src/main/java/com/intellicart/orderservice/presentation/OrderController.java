@@ -1,34 +1,120 @@
 package com.intellicart.orderservice.presentation;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.dto.OrderSummary;
+import com.intellicart.orderservice.service.IdempotencyStore;
 import com.intellicart.orderservice.service.OrderService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final int MAX_PAGE = 1000;
+    private static final int MAX_BATCH = 1000;
+
+    /** Response header carrying the keyset cursor for the next page; absent on the last page. */
+    static final String NEXT_AFTER = "X-Next-After";
+
+    static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    static final String REPLAYED = "Idempotent-Replayed";
+    private static final int MAX_KEY_LENGTH = 255;
+
     private final OrderService orderService;
+    private final ObjectWriter orderWriter;
 
     @Autowired
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, ObjectMapper mapper) {
         this.orderService = orderService;
+        this.orderWriter = mapper.writerFor(CustomerOrder.class);
     }
 
+    /**
+     * Creates an order. With an {@code Idempotency-Key} header a retry of the same order gets
+     * the original back (flagged by {@code Idempotent-Replayed: true}) instead of a duplicate.
+     */
     @PostMapping
-    public CustomerOrder createOrder(@RequestBody CustomerOrder customerOrder) {
-        return orderService.createOrder(customerOrder);
+    public ResponseEntity<CustomerOrder> createOrder(@RequestBody CustomerOrder customerOrder,
+                                                     @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key) {
+        checkKey(key);
+        return reply(orderService.createOrder(customerOrder, key));
+    }
+
+    /**
+     * Creates up to 1000 orders in one request, returned in request order with their ids.
+     * Prices are looked up once for the whole batch, and the batch commits in one
+     * transaction: all of its orders or none. {@code Idempotency-Key} works as for a single order.
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<CustomerOrder>> createOrders(@RequestBody List<CustomerOrder> orders,
+                                                            @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key) {
+        if (orders.isEmpty() || orders.size() > MAX_BATCH) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "A batch holds 1-" + MAX_BATCH + " orders");
+        }
+        checkKey(key);
+        return reply(orderService.createOrders(orders, key));
+    }
+
+    private static void checkKey(String key) {
+        if (key != null && (key.isBlank() || key.length() > MAX_KEY_LENGTH)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    IDEMPOTENCY_KEY + " must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+    }
+
+    private static <T> ResponseEntity<T> reply(IdempotencyStore.Outcome<T> outcome) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (outcome.replayed()) ok.header(REPLAYED, "true");
+        return ok.body(outcome.result());
     }
 
+    /** One keyset page of orders with their items: {@code ?after=<last id seen>&limit=} (at most 1000). */
     @GetMapping
-    public List<CustomerOrder> getAllOrders() {
-        return orderService.findAllOrders();
+    public ResponseEntity<List<CustomerOrder>> getAllOrders(@RequestParam(name = "after", required = false) Long after,
+                                                            @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        int size = Math.max(1, Math.min(limit, MAX_PAGE));
+        List<CustomerOrder> page = orderService.page(after, size);
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (page.size() == size) {
+            ok.header(NEXT_AFTER, String.valueOf(page.get(page.size() - 1).getId()));
+        }
+        return ok.body(page);
+    }
+
+    /** Every order as newline-delimited JSON, written page by page as it is read. */
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportOrders() {
+        StreamingResponseBody body = out -> orderService.forEachOrder(o -> {
+            try {
+                out.write(orderWriter.writeValueAsBytes(o));
+                out.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @GetMapping("/user/{userId}")
     public List<CustomerOrder> getOrdersByUserId(@PathVariable Long userId) {
         return orderService.findOrdersByUserId(userId);
     }
+
+    /** Count, total spend and latest order id/date, without loading the orders themselves. */
+    @GetMapping("/user/{userId}/summary")
+    public OrderSummary getOrderSummary(@PathVariable Long userId) {
+        return orderService.summarize(userId);
+    }
 }
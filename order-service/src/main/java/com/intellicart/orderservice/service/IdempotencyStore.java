@@ -0,0 +1,106 @@
+package com.intellicart.orderservice.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Orders created under an Idempotency-Key, kept for a TTL and bounded in size. Keys are
+ * scoped to the ordering user, so two users picking the same key never collide, and batch
+ * keys are kept apart from single-order ones. The first request with a key runs the
+ * create; concurrent and later requests with the same key and the same orders wait for and
+ * get that result instead of writing again. A failed create releases the key so a retry
+ * can run it.
+ */
+@Component
+public class IdempotencyStore {
+
+    /** What the client asked for, before prices are filled in; a replay must match it. */
+    record Fingerprint(List<Long> userIds, List<String> items) {
+        static Fingerprint of(List<CustomerOrder> orders) {
+            List<Long> userIds = new ArrayList<>(orders.size());
+            List<String> items = new ArrayList<>();
+            for (CustomerOrder order : orders) {
+                userIds.add(order.getUserId());
+                for (OrderItem it : order.getItems()) {
+                    BigDecimal price = it.getPrice() == null ? null : it.getPrice().stripTrailingZeros();
+                    items.add(userIds.size() + ":" + it.getBookId() + "x" + it.getQuantity() + "@" + price);
+                }
+            }
+            return new Fingerprint(userIds, items);
+        }
+    }
+
+    /**
+     * An Idempotency-Key as sent by one user; a batch is scoped to its orders' user, or to
+     * none when they belong to several.
+     */
+    record Key(Long userId, String key, boolean batch) {}
+
+    record Entry(Fingerprint fingerprint, CompletableFuture<Object> result) {}
+
+    /** The stored result and whether this request replayed it rather than creating it. */
+    public record Outcome<T>(T result, boolean replayed) {}
+
+    private final Cache<Key, Entry> entries;
+
+    public IdempotencyStore(@Value("${app.orders.idempotency.max-keys:100000}") long maxKeys,
+                            @Value("${app.orders.idempotency.ttl:24h}") Duration ttl) {
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxKeys)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    public Outcome<CustomerOrder> execute(String key, CustomerOrder request, Supplier<CustomerOrder> create) {
+        return run(new Key(request.getUserId(), key, false), List.of(request), create);
+    }
+
+    public Outcome<List<CustomerOrder>> executeBatch(String key, List<CustomerOrder> request,
+                                                     Supplier<List<CustomerOrder>> create) {
+        Long userId = request.get(0).getUserId();
+        for (CustomerOrder order : request) {
+            if (!Objects.equals(order.getUserId(), userId)) {
+                userId = null;
+                break;
+            }
+        }
+        return run(new Key(userId, key, true), request, create);
+    }
+
+    // the batch flag in the key keeps single-order and batch results apart, hence the casts
+    @SuppressWarnings("unchecked")
+    private <T> Outcome<T> run(Key key, List<CustomerOrder> request, Supplier<T> create) {
+        Entry mine = new Entry(Fingerprint.of(request), new CompletableFuture<>());
+        Entry existing = entries.asMap().putIfAbsent(key, mine);
+        if (existing != null) {
+            if (!existing.fingerprint().equals(mine.fingerprint())) throw new IdempotencyKeyReusedException(key.key());
+            try {
+                return new Outcome<>((T) existing.result().join(), true);
+            } catch (CompletionException e) {
+                throw e.getCause() instanceof RuntimeException re ? re : e;
+            }
+        }
+        try {
+            T created = create.get();
+            mine.result().complete(created);
+            return new Outcome<>(created, false);
+        } catch (RuntimeException e) {
+            entries.asMap().remove(key, mine);
+            mine.result().completeExceptionally(e);
+            throw e;
+        }
+    }
+}
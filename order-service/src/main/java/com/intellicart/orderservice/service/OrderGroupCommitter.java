@@ -0,0 +1,168 @@
+package com.intellicart.orderservice.service;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import com.intellicart.orderservice.infrastructure.OrderBatchWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group commit for order creation. Each caller queues its orders as one unit and waits; a
+ * single writer thread takes the first waiting unit, gathers whatever else arrives within
+ * the window (up to max-batch orders) and inserts the group in one transaction, then hands
+ * each caller its own orders back with their ids. A unit is never split: a batch larger
+ * than max-batch is written as a group of its own. A group that fails is retried one unit
+ * per transaction, so a bad order only fails its own caller, and a batch either commits
+ * whole or not at all. A zero window writes in the caller's thread instead.
+ */
+@Component
+public class OrderGroupCommitter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderGroupCommitter.class);
+
+    record Pending(List<CustomerOrder> orders, CompletableFuture<List<CustomerOrder>> done) {}
+
+    private final OrderBatchWriter writer;
+    private final long windowNanos;
+    private final int maxBatch;
+    private final BlockingQueue<Pending> queue = new LinkedBlockingQueue<>();
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public OrderGroupCommitter(OrderBatchWriter writer,
+                               @Value("${app.orders.group-commit.window:2ms}") Duration window,
+                               @Value("${app.orders.group-commit.max-batch:100}") int maxBatch) {
+        this.writer = writer;
+        this.windowNanos = window.toNanos();
+        this.maxBatch = Math.max(1, maxBatch);
+    }
+
+    /**
+     * Inserts {@code orders} in one transaction, all of them or none, and returns them, ids
+     * assigned, in the same order.
+     */
+    public List<CustomerOrder> commit(List<CustomerOrder> orders) {
+        if (!running || windowNanos == 0) {
+            writer.insert(orders);
+            return orders;
+        }
+        Pending p = new Pending(orders, new CompletableFuture<>());
+        queue.add(p);
+        try {
+            return p.done().join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : e;
+        }
+    }
+
+    private void run() {
+        List<Pending> group = new ArrayList<>();
+        Pending carried = null;  // polled but did not fit the previous group
+        while (running || carried != null || !queue.isEmpty()) {
+            try {
+                Pending first = carried != null ? carried : queue.poll(100, TimeUnit.MILLISECONDS);
+                carried = null;
+                if (first == null) continue;
+                group.add(first);
+                int size = first.orders().size();
+                long deadline = System.nanoTime() + windowNanos;
+                while (size < maxBatch) {
+                    long left = deadline - System.nanoTime();
+                    Pending next = left > 0 ? queue.poll(left, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) break;
+                    if (size + next.orders().size() > maxBatch) {
+                        carried = next;
+                        break;
+                    }
+                    group.add(next);
+                    size += next.orders().size();
+                }
+                write(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                if (carried != null) queue.add(carried);
+                return;
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    private void write(List<Pending> group) {
+        List<CustomerOrder> orders = new ArrayList<>();
+        for (Pending p : group) orders.addAll(p.orders());
+        try {
+            writer.insert(orders);
+            for (Pending p : group) p.done().complete(p.orders());
+            return;
+        } catch (RuntimeException e) {
+            if (group.size() == 1) {
+                group.get(0).done().completeExceptionally(e);
+                return;
+            }
+            log.warn("Group commit of {} orders failed, writing them one caller at a time: {}", orders.size(), e.getMessage());
+        }
+        for (Pending p : group) {
+            // ids handed out by the rolled-back persist would make the entities look detached
+            p.orders().forEach(OrderGroupCommitter::clearIds);
+            try {
+                writer.insert(p.orders());
+                p.done().complete(p.orders());
+            } catch (RuntimeException e) {
+                p.done().completeExceptionally(e);
+            }
+        }
+    }
+
+    private static void clearIds(CustomerOrder order) {
+        order.setId(null);
+        for (OrderItem item : order.getItems()) item.setId(null);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        thread = new Thread(this::run, "order-group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @Override
+    public void stop() {
+        // lets the writer drain what is queued; new callers write in their own thread
+        running = false;
+        try {
+            thread.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // anything queued between a caller's running check and the writer exiting
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) write(rest);
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /** Starts before and stops after the web server, so no request is left waiting on a stopped writer. */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -1,37 +1,142 @@
 package com.intellicart.orderservice.service;
 
 import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import com.intellicart.orderservice.dto.OrderSummary;
+import com.intellicart.orderservice.infrastructure.BookPriceClient;
 import com.intellicart.orderservice.infrastructure.OrderRepository;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import java.util.List;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-// We no longer need imports for StreamBridge or the event DTOs
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
 
 @Service
 public class OrderService {
 
+    private static final int EXPORT_PAGE = 500;
+
     private final OrderRepository orderRepository;
-    // The StreamBridge field has been removed
+    private final BookPriceClient bookPrices;
+    private final IdempotencyStore idempotency;
+    private final OrderGroupCommitter groupCommitter;
+    private final TransactionTemplate readOnly;
 
     @Autowired
-    public OrderService(OrderRepository orderRepository) { // StreamBridge removed from constructor
+    public OrderService(OrderRepository orderRepository, BookPriceClient bookPrices,
+                        IdempotencyStore idempotency, OrderGroupCommitter groupCommitter,
+                        PlatformTransactionManager transactions) {
         this.orderRepository = orderRepository;
+        this.bookPrices = bookPrices;
+        this.idempotency = idempotency;
+        this.groupCommitter = groupCommitter;
+        this.readOnly = new TransactionTemplate(transactions);
+        this.readOnly.setReadOnly(true);
+    }
+
+    /**
+     * {@link #createOrder(CustomerOrder)} at most once per Idempotency-Key: a repeat of the
+     * same order gets the stored result back, a different order under the key is rejected.
+     */
+    public IdempotencyStore.Outcome<CustomerOrder> createOrder(CustomerOrder customerOrder, String idempotencyKey) {
+        if (idempotencyKey == null) return new IdempotencyStore.Outcome<>(createOrder(customerOrder), false);
+        return idempotency.execute(idempotencyKey, customerOrder, () -> createOrder(customerOrder));
+    }
+
+    /** {@link #createOrders(List)} at most once per Idempotency-Key, as for a single order. */
+    public IdempotencyStore.Outcome<List<CustomerOrder>> createOrders(List<CustomerOrder> orders, String idempotencyKey) {
+        if (idempotencyKey == null) return new IdempotencyStore.Outcome<>(createOrders(orders), false);
+        return idempotency.executeBatch(idempotencyKey, orders, () -> createOrders(orders));
     }
 
     public CustomerOrder createOrder(CustomerOrder customerOrder) {
-        // This line correctly sets up the database relationship and is still needed
-        customerOrder.getItems().forEach(item -> item.setOrder(customerOrder));
+        return createOrders(List.of(customerOrder)).get(0);
+    }
+
+    /**
+     * Creates every order in {@code orders}, all of them or none: catalogue prices for all of
+     * them in one lookup, then written through the group committer in one transaction, which
+     * may also hold other callers' orders. Returned in the same order, ids assigned.
+     */
+    public List<CustomerOrder> createOrders(List<CustomerOrder> orders) {
+        for (CustomerOrder order : orders) {
+            // a POST always creates: client-sent ids would make persist treat the rows as existing
+            order.setId(null);
+            order.getItems().forEach(item -> {
+                item.setId(null);
+                item.setOrder(order);
+            });
+        }
+        fillMissingPrices(orders);
+        return groupCommitter.commit(orders);
+    }
 
-        // We now just save the order and return it. All event publishing code is gone.
-        return orderRepository.save(customerOrder);
+    /** Items posted without a price get the catalogue price, all looked up in one call. */
+    private void fillMissingPrices(List<CustomerOrder> orders) {
+        Set<Long> unpriced = new LinkedHashSet<>();
+        for (CustomerOrder order : orders) {
+            for (OrderItem item : order.getItems()) {
+                if (item.getPrice() == null && item.getBookId() != null) unpriced.add(item.getBookId());
+            }
+        }
+        if (unpriced.isEmpty()) return;
+        Map<Long, Double> prices = bookPrices.prices(unpriced);
+        for (CustomerOrder order : orders) {
+            boolean filled = false;
+            for (OrderItem item : order.getItems()) {
+                Double price = item.getPrice() == null ? prices.get(item.getBookId()) : null;
+                if (price != null) {
+                    item.setPrice(BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP));
+                    filled = true;
+                }
+            }
+            if (filled) order.recalcTotal();
+        }
     }
 
-    public List<CustomerOrder> findAllOrders() {
-        return orderRepository.findAll();
+    /**
+     * Up to {@code limit} orders with an id greater than {@code after}, in id order, items
+     * included: one query for the ids and one for the orders.
+     */
+    @Transactional(readOnly = true)
+    public List<CustomerOrder> page(Long after, int limit) {
+        List<Long> ids = orderRepository.findIdsAfter(after == null ? 0L : after, PageRequest.of(0, limit));
+        return ids.isEmpty() ? List.of() : orderRepository.findWithItemsByIdIn(ids);
     }
 
+    /**
+     * Feeds every order to {@code action} in id order, one keyset page at a time, so only a
+     * page of orders is in memory however large the table grows. Each page is read in its
+     * own read-only transaction (a self-call would bypass {@link #page}'s), so none stays
+     * open while {@code action} runs.
+     */
+    public void forEachOrder(Consumer<CustomerOrder> action) {
+        Long after = null;
+        while (true) {
+            Long from = after;
+            List<CustomerOrder> page = readOnly.execute(tx -> page(from, EXPORT_PAGE));
+            page.forEach(action);
+            if (page.size() < EXPORT_PAGE) return;
+            after = page.get(page.size() - 1).getId();
+        }
+    }
+
+    @Transactional(readOnly = true)
     public List<CustomerOrder> findOrdersByUserId(Long userId) {
         return orderRepository.findByUserId(userId);
     }
+
+    @Transactional(readOnly = true)
+    public OrderSummary summarize(Long userId) {
+        return orderRepository.summarize(userId).orElseGet(() -> OrderSummary.empty(userId));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,96 @@
+package com.intellicart.orderservice.infrastructure;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import com.intellicart.orderservice.dto.OrderSummary;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// keep the import.sql sample rows out so the numbers below are exactly the orders written here
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.hbm2ddl.import_files=")
+class OrderRepositoryTest {
+
+    @Autowired
+    private OrderRepository orders;
+
+    @Autowired
+    private TestEntityManager em;
+
+    @Test
+    void summaryTakesTheLatestTimeFromTheLatestOrder() {
+        save(7L, "2026-03-01T10:00:00Z", "10.00");
+        save(7L, "2026-03-05T10:00:00Z", "2.50");
+        // newest id, but stamped earlier (e.g. a back-filled order)
+        CustomerOrder latest = save(7L, "2026-02-01T10:00:00Z", "1.25");
+        save(8L, "2026-04-01T10:00:00Z", "99.00");
+        em.clear();
+
+        OrderSummary summary = orders.summarize(7L).orElseThrow();
+
+        assertEquals(7L, summary.userId());
+        assertEquals(3L, summary.orderCount());
+        assertEquals(0, new BigDecimal("13.75").compareTo(summary.totalSpend()));
+        assertEquals(latest.getId(), summary.latestOrderId());
+        assertEquals(Instant.parse("2026-02-01T10:00:00Z"), summary.latestOrderAt());
+    }
+
+    @Test
+    void noSummaryForAUserWithoutOrders() {
+        assertTrue(orders.summarize(404L).isEmpty());
+    }
+
+    @Test
+    void keysetPagesWalkEveryOrderOnceInIdOrder() {
+        List<Long> written = new ArrayList<>();
+        for (int i = 0; i < 7; i++) written.add(save(1L + i % 3, "2026-03-01T10:00:00Z", "1.00").getId());
+        em.clear();
+
+        List<Long> seen = new ArrayList<>();
+        long after = 0;
+        while (true) {
+            List<Long> page = orders.findIdsAfter(after, PageRequest.of(0, 3));
+            seen.addAll(page);
+            if (page.size() < 3) break;
+            after = page.get(page.size() - 1);
+        }
+
+        assertEquals(written, seen);
+    }
+
+    @Test
+    void pageOfOrdersComesWithItsItems() {
+        Long first = save(1L, "2026-03-01T10:00:00Z", "1.00").getId();
+        Long second = save(2L, "2026-03-01T10:00:00Z", "2.00").getId();
+        em.clear();
+
+        List<CustomerOrder> page = orders.findWithItemsByIdIn(List.of(second, first));
+        em.clear();
+
+        assertEquals(List.of(first, second), page.stream().map(CustomerOrder::getId).toList());
+        // detached now, so the items must have been fetched with the orders
+        assertEquals(0, new BigDecimal("2.00").compareTo(page.get(1).getItems().get(0).getPrice()));
+    }
+
+    private CustomerOrder save(Long userId, String createdAt, String price) {
+        OrderItem item = new OrderItem();
+        item.setBookId(1L);
+        item.setQuantity(1);
+        item.setPrice(new BigDecimal(price));
+        CustomerOrder order = new CustomerOrder();
+        order.setUserId(userId);
+        order.setCreatedAt(Instant.parse(createdAt));
+        order.addItem(item);
+        return em.persistAndFlush(order);
+    }
+}
@@ -0,0 +1,137 @@
+package com.intellicart.orderservice.service;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.domain.OrderItem;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IdempotencyStoreTest {
+
+    private final IdempotencyStore store = new IdempotencyStore(1_000, Duration.ofHours(1));
+    private final AtomicLong ids = new AtomicLong();
+    private final AtomicInteger creates = new AtomicInteger();
+
+    @Test
+    void repeatOfTheSameOrderReplaysTheFirstResult() {
+        IdempotencyStore.Outcome<CustomerOrder> first = store.execute("k1", order(1L, 10L, 2), () -> create(order(1L, 10L, 2)));
+        IdempotencyStore.Outcome<CustomerOrder> again = store.execute("k1", order(1L, 10L, 2), () -> create(order(1L, 10L, 2)));
+
+        assertFalse(first.replayed());
+        assertTrue(again.replayed());
+        assertSame(first.result(), again.result());
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void differentOrderUnderAUsedKeyIsRejected() {
+        store.execute("k1", order(1L, 10L, 2), () -> create(order(1L, 10L, 2)));
+
+        assertThrows(IdempotencyKeyReusedException.class,
+                () -> store.execute("k1", order(1L, 10L, 3), () -> create(order(1L, 10L, 3))));
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void keysAreScopedToTheUser() {
+        CustomerOrder alice = store.execute("k1", order(1L, 10L, 2), () -> create(order(1L, 10L, 2))).result();
+        IdempotencyStore.Outcome<CustomerOrder> bob = store.execute("k1", order(2L, 11L, 1), () -> create(order(2L, 11L, 1)));
+
+        assertFalse(bob.replayed());
+        assertNotEquals(alice.getId(), bob.result().getId());
+        assertEquals(2, creates.get());
+    }
+
+    @Test
+    void failedCreateReleasesTheKey() {
+        assertThrows(IllegalStateException.class, () -> store.execute("k1", order(1L, 10L, 2), () -> {
+            throw new IllegalStateException("database down");
+        }));
+
+        IdempotencyStore.Outcome<CustomerOrder> retry = store.execute("k1", order(1L, 10L, 2), () -> create(order(1L, 10L, 2)));
+        assertFalse(retry.replayed());
+        assertEquals(1, creates.get());
+    }
+
+    @Test
+    void batchKeysReplayTheWholeBatchAndStayApartFromSingleOrders() {
+        List<CustomerOrder> batch = List.of(order(1L, 10L, 1), order(1L, 11L, 2));
+        store.execute("k1", order(1L, 10L, 1), () -> create(order(1L, 10L, 1)));
+
+        IdempotencyStore.Outcome<List<CustomerOrder>> first = store.executeBatch("k1", batch, () -> batch.stream().map(this::create).toList());
+        IdempotencyStore.Outcome<List<CustomerOrder>> again = store.executeBatch("k1",
+                List.of(order(1L, 10L, 1), order(1L, 11L, 2)), () -> List.of(create(order(1L, 99L, 1))));
+
+        assertFalse(first.replayed());
+        assertTrue(again.replayed());
+        assertSame(first.result(), again.result());
+        assertEquals(3, creates.get());
+        assertThrows(IdempotencyKeyReusedException.class, () -> store.executeBatch("k1",
+                List.of(order(1L, 11L, 2), order(1L, 10L, 1)), List::of));
+    }
+
+    @Test
+    void concurrentRequestsWithOneKeyCreateOnce() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            List<Future<IdempotencyStore.Outcome<CustomerOrder>>> calls = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                calls.add(pool.submit(() -> store.execute("k1", order(1L, 10L, 2), () -> {
+                    await(release);
+                    return create(order(1L, 10L, 2));
+                })));
+            }
+            release.countDown();
+            int replayed = 0;
+            for (Future<IdempotencyStore.Outcome<CustomerOrder>> call : calls) {
+                if (call.get().replayed()) replayed++;
+            }
+            assertEquals(7, replayed);
+            assertEquals(1, creates.get());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private CustomerOrder create(CustomerOrder order) {
+        creates.incrementAndGet();
+        order.setId(ids.incrementAndGet());
+        return order;
+    }
+
+    private static CustomerOrder order(Long userId, Long bookId, int quantity) {
+        OrderItem item = new OrderItem();
+        item.setBookId(bookId);
+        item.setQuantity(quantity);
+        item.setPrice(new BigDecimal("4.50"));
+        CustomerOrder order = new CustomerOrder();
+        order.setUserId(userId);
+        order.addItem(item);
+        return order;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
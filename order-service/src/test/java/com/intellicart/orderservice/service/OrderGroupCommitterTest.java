@@ -0,0 +1,155 @@
+package com.intellicart.orderservice.service;
+
+import com.intellicart.orderservice.domain.CustomerOrder;
+import com.intellicart.orderservice.infrastructure.OrderBatchWriter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class OrderGroupCommitterTest {
+
+    private final FakeWriter writer = new FakeWriter();
+    private final ExecutorService callers = Executors.newFixedThreadPool(8);
+    private OrderGroupCommitter committer;
+
+    @AfterEach
+    void stop() {
+        callers.shutdownNow();
+        if (committer != null && committer.isRunning()) committer.stop();
+    }
+
+    @Test
+    void concurrentCallersShareATransaction() throws Exception {
+        start(Duration.ofMillis(200), 100);
+        List<Future<List<CustomerOrder>>> calls = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            calls.add(callers.submit(() -> committer.commit(List.of(new CustomerOrder()))));
+        }
+        for (Future<List<CustomerOrder>> call : calls) {
+            assertNotNull(call.get().get(0).getId());
+        }
+        assertTrue(writer.transactions.size() < 4, "expected shared transactions, got " + writer.transactions);
+    }
+
+    @Test
+    void aBadOrderFailsOnlyItsOwnCaller() throws Exception {
+        start(Duration.ofMillis(200), 100);
+        CustomerOrder bad = new CustomerOrder();
+        writer.failing.add(bad);
+
+        Future<List<CustomerOrder>> good = callers.submit(() -> committer.commit(List.of(new CustomerOrder())));
+        Future<List<CustomerOrder>> failed = callers.submit(() -> committer.commit(List.of(bad)));
+        Future<List<CustomerOrder>> alsoGood = callers.submit(() -> committer.commit(List.of(new CustomerOrder())));
+
+        assertNotNull(good.get().get(0).getId());
+        assertNotNull(alsoGood.get().get(0).getId());
+        Exception e = assertThrows(Exception.class, failed::get);
+        assertTrue(e.getCause() instanceof IllegalStateException, String.valueOf(e.getCause()));
+    }
+
+    @Test
+    void aBatchCommitsWholeOrNotAtAll() throws Exception {
+        start(Duration.ofMillis(200), 100);
+        List<CustomerOrder> batch = List.of(new CustomerOrder(), new CustomerOrder(), new CustomerOrder());
+        writer.failing.add(batch.get(1));
+
+        Future<List<CustomerOrder>> neighbour = callers.submit(() -> committer.commit(List.of(new CustomerOrder())));
+        Future<List<CustomerOrder>> failed = callers.submit(() -> committer.commit(batch));
+
+        assertNotNull(neighbour.get().get(0).getId());
+        assertThrows(Exception.class, failed::get);
+        // the batch went in as one unit every time it was tried
+        for (List<CustomerOrder> tx : writer.transactions) {
+            if (tx.contains(batch.get(0))) assertTrue(tx.containsAll(batch), "batch split: " + tx.size());
+        }
+    }
+
+    @Test
+    void aBatchLargerThanMaxBatchIsNotSplit() throws Exception {
+        start(Duration.ofMillis(50), 5);
+        List<CustomerOrder> batch = new ArrayList<>();
+        for (int i = 0; i < 12; i++) batch.add(new CustomerOrder());
+
+        List<CustomerOrder> saved = callers.submit(() -> committer.commit(batch)).get();
+
+        assertSame(batch, saved);
+        assertEquals(List.of(12), writer.sizes());
+        for (CustomerOrder o : saved) assertNotNull(o.getId());
+    }
+
+    @Test
+    void groupsStopAtMaxBatchOrders() throws Exception {
+        start(Duration.ofMillis(200), 5);
+        List<Future<List<CustomerOrder>>> calls = new ArrayList<>();
+        for (int size : new int[]{2, 2, 2, 2}) {
+            List<CustomerOrder> orders = new ArrayList<>();
+            for (int i = 0; i < size; i++) orders.add(new CustomerOrder());
+            calls.add(callers.submit(() -> committer.commit(orders)));
+            Thread.sleep(5);
+        }
+        for (Future<List<CustomerOrder>> call : calls) call.get();
+
+        for (int size : writer.sizes()) assertTrue(size <= 5, "group of " + size);
+        assertEquals(8, writer.sizes().stream().mapToInt(Integer::intValue).sum());
+    }
+
+    @Test
+    void zeroWindowWritesInTheCallersThread() {
+        start(Duration.ZERO, 100);
+        List<CustomerOrder> batch = List.of(new CustomerOrder(), new CustomerOrder());
+
+        committer.commit(batch);
+
+        assertEquals(List.of(2), writer.sizes());
+        assertEquals(Thread.currentThread(), writer.lastThread);
+    }
+
+    private void start(Duration window, int maxBatch) {
+        committer = new OrderGroupCommitter(writer, window, maxBatch);
+        committer.start();
+    }
+
+    /** Records each insert as one transaction; an insert holding a failing order rolls back whole. */
+    static final class FakeWriter extends OrderBatchWriter {
+
+        final List<List<CustomerOrder>> transactions = Collections.synchronizedList(new ArrayList<>());
+        final Set<CustomerOrder> failing = ConcurrentHashMap.newKeySet();
+        private final AtomicLong ids = new AtomicLong();
+        volatile Thread lastThread;
+
+        @Override
+        public void insert(List<CustomerOrder> orders) {
+            lastThread = Thread.currentThread();
+            transactions.add(List.copyOf(orders));
+            for (CustomerOrder o : orders) {
+                o.setId(ids.incrementAndGet());
+                if (failing.contains(o)) {
+                    // the ids handed out are left behind, as after a real rollback
+                    throw new IllegalStateException("constraint violation");
+                }
+            }
+        }
+
+        List<Integer> sizes() {
+            synchronized (transactions) {
+                return transactions.stream().map(List::size).toList();
+            }
+        }
+    }
+}